@@ -2,8 +2,13 @@ package com.ductieng;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+// Mặc định dùng chung cho main() và ServletInitializer (WAR không gọi main)
+@PropertySource("classpath:defaults.properties")
 public class WebsitebanlaptopApplication {
   public static void main(String[] args) {
     // 👇 Quan trọng: set system property trước khi Tomcat được tạo
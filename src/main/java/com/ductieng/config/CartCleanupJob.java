@@ -0,0 +1,39 @@
+package com.ductieng.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ductieng.service.CartService;
+
+import java.time.Duration;
+
+/** Dọn giỏ hàng khách bỏ dở (bảng cart_lines) mỗi đêm. */
+@Component
+public class CartCleanupJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CartCleanupJob.class);
+
+    private final CartService cartService;
+    private final Duration guestTtl;
+
+    public CartCleanupJob(CartService cartService,
+            @Value("${app.cart.guest-ttl:30d}") Duration guestTtl) {
+        this.cartService = cartService;
+        this.guestTtl = guestTtl;
+    }
+
+    @Scheduled(cron = "${app.cart.cleanup.cron:0 0 4 * * *}")
+    public void purge() {
+        try {
+            int n = cartService.purgeGuestCarts(guestTtl);
+            if (n > 0) {
+                log.info("[Cart] Đã xoá {} dòng giỏ hàng khách quá hạn", n);
+            }
+        } catch (Exception e) {
+            log.warn("[Cart] Dọn giỏ hàng khách thất bại: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ductieng.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ductieng.service.ClusterSignals;
+
+import java.time.Duration;
+
+/** Đọc tín hiệu huỷ cache của node khác mỗi giây; dọn tín hiệu cũ mỗi giờ. */
+@Component
+public class ClusterSignalJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterSignalJob.class);
+
+    private final ClusterSignals signals;
+    private final Duration retention;
+
+    public ClusterSignalJob(ClusterSignals signals,
+            @Value("${app.cluster.signals.retention:1h}") Duration retention) {
+        this.signals = signals;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.signals.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            signals.poll();
+        } catch (Exception e) {
+            log.warn("[Cluster] Đọc cache_signals thất bại: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.cluster.signals.purge.cron:0 15 * * * *}")
+    public void purge() {
+        try {
+            int n = signals.purge(retention);
+            if (n > 0) {
+                log.info("[Cluster] Đã xoá {} tín hiệu cache cũ", n);
+            }
+        } catch (Exception e) {
+            log.warn("[Cluster] Dọn cache_signals thất bại: {}", e.getMessage());
+        }
+    }
+}
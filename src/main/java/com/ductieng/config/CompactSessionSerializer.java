@@ -0,0 +1,86 @@
+package com.ductieng.config;
+
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Tuần tự hoá thuộc tính session cho Spring Session JDBC: Java serialization như mặc định,
+ * nhưng giá trị từ {@code threshold} byte trở lên (SecurityContext, OAuth2 token...) được
+ * nén deflate nếu thực sự nhỏ hơn. Giá trị nén có 1 byte đánh dấu ở đầu; giá trị thường
+ * vẫn bắt đầu bằng magic 0xACED nên đọc được cả dữ liệu ghi bởi bộ tuần tự mặc định.
+ * <p>
+ * Đồng thời đếm số lần ghi / số byte để theo dõi kích thước session.
+ */
+public class CompactSessionSerializer implements Serializer<Object>, Deserializer<Object> {
+
+    private static final int DEFLATED = 1;
+
+    private final int threshold;
+    private final DefaultSerializer serializer = new DefaultSerializer();
+    private final DefaultDeserializer deserializer;
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder compressed = new LongAdder();
+    private final LongAccumulator largest = new LongAccumulator(Math::max, 0);
+
+    public CompactSessionSerializer(ClassLoader classLoader, int threshold) {
+        this.deserializer = new DefaultDeserializer(classLoader);
+        this.threshold = Math.max(threshold, 1);
+    }
+
+    /** Số liệu kích thước (byte) các thuộc tính session đã ghi từ lúc khởi động. */
+    public record Stats(long writes, long rawBytes, long storedBytes, long compressed, long largestStored) {
+    }
+
+    public Stats stats() {
+        return new Stats(writes.sum(), rawBytes.sum(), storedBytes.sum(), compressed.sum(), largest.get());
+    }
+
+    @Override
+    public void serialize(Object value, OutputStream out) throws IOException {
+        byte[] raw = serializer.serializeToByteArray(value);
+        byte[] stored = raw;
+        if (raw.length >= threshold) {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(raw.length / 2 + 16);
+            buf.write(DEFLATED);
+            try (DeflaterOutputStream z = new DeflaterOutputStream(buf, new Deflater(Deflater.BEST_SPEED))) {
+                z.write(raw);
+            }
+            if (buf.size() < raw.length) {
+                stored = buf.toByteArray();
+                compressed.increment();
+            }
+        }
+        writes.increment();
+        rawBytes.add(raw.length);
+        storedBytes.add(stored.length);
+        largest.accumulate(stored.length);
+        out.write(stored);
+    }
+
+    @Override
+    public Object deserialize(InputStream in) throws IOException {
+        byte[] bytes = in.readAllBytes();
+        if (bytes.length > 0 && bytes[0] == DEFLATED) {
+            try (InputStream z = new InflaterInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+                return deserializer.deserialize(z);
+            }
+        }
+        return deserializer.deserialize(new ByteArrayInputStream(bytes));
+    }
+}
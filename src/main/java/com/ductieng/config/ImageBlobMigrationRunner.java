@@ -0,0 +1,190 @@
+package com.ductieng.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.ductieng.service.ImageStore;
+import com.ductieng.service.ImageVariants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Job chạy 1 lần lúc khởi động: chuyển ảnh cũ trong các cột LONGBLOB laptops.image1..image5
+ * sang ImageStore, ghi khoá vào image{n}_key rồi xoá blob (SET NULL). Từng dòng, từng slot:
+ * ghi file trước, cập nhật DB sau -> dừng giữa chừng thì chạy lại an toàn (file trùng
+ * nội dung chỉ lưu 1 bản). Cột blob nào còn tồn tại thì đọc từ metadata JDBC, DB mới
+ * (không còn cột) thì bỏ qua.
+ * <p>
+ * Xoá blob là bước không đảo ngược được nên chỉ làm khi app.upload.base-dir là đường dẫn
+ * tuyệt đối; mặc định "uploads" (tương đối theo thư mục chạy) thì chỉ chép + ghi khoá,
+ * blob giữ nguyên.
+ * <p>
+ * Sau đó quét mọi khoá ảnh của SP (kể cả ảnh vừa chuyển) và xếp hàng ImageVariants cho ảnh
+ * chưa có master, tới khi hàng đợi đầy; phần còn lại được xếp hàng khi có request đọc ảnh.
+ */
+@Component
+public class ImageBlobMigrationRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageBlobMigrationRunner.class);
+
+    private final JdbcTemplate jdbc;
+    private final ImageStore imageStore;
+    private final ImageVariants imageVariants;
+    private final boolean absoluteBaseDir;
+
+    @Value("${app.images.blob-migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.images.blob-migration.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.images.variants.startup-sweep:true}")
+    private boolean sweepEnabled;
+
+    public ImageBlobMigrationRunner(JdbcTemplate jdbc, ImageStore imageStore, ImageVariants imageVariants,
+            @Value("${app.upload.base-dir:uploads}") String baseDir) {
+        this.jdbc = jdbc;
+        this.imageStore = imageStore;
+        this.imageVariants = imageVariants;
+        this.absoluteBaseDir = Paths.get(baseDir).isAbsolute();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled)
+            migrateBlobs();
+        if (sweepEnabled)
+            enqueueMissingMasters();
+    }
+
+    private void migrateBlobs() {
+        List<Integer> slots;
+        try {
+            slots = blobSlots();
+        } catch (DataAccessException e) {
+            log.warn("[Image] Không đọc được metadata bảng laptops, bỏ qua chuyển ảnh blob: {}", e.getMessage());
+            return;
+        }
+        if (slots.isEmpty())
+            return;
+        if (!absoluteBaseDir) {
+            log.warn("[Image] app.upload.base-dir không phải đường dẫn tuyệt đối: chỉ chép ảnh blob sang kho file,"
+                    + " KHÔNG xoá blob. Cấu hình đường dẫn tuyệt đối rồi khởi động lại để giải phóng cột blob.");
+        }
+
+        int total = 0;
+        for (int slot : slots) {
+            try {
+                total += migrateSlot(slot, absoluteBaseDir);
+            } catch (Exception e) {
+                // Cột chắc chắn tồn tại -> đây là lỗi thật (khoá, mất kết nối, đĩa...)
+                log.warn("[Image] Chuyển ảnh blob dừng ở slot {} sau {} ảnh: {}", slot, total, e.getMessage());
+                return;
+            }
+        }
+        if (total > 0) {
+            log.info("[Image] Đã chuyển {} ảnh từ LONGBLOB sang kho file", total);
+        }
+    }
+
+    private void enqueueMissingMasters() {
+        Set<String> keys = new HashSet<>();
+        try {
+            jdbc.query("select image1_key, image2_key, image3_key, image4_key, image5_key from laptops", rs -> {
+                for (int i = 1; i <= 5; i++) {
+                    String key = rs.getString(i);
+                    if (key != null)
+                        keys.add(key);
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("[Image] Không đọc được khoá ảnh để xếp hàng xử lý: {}", e.getMessage());
+            return;
+        }
+        int queued = 0, pending = 0;
+        for (String key : keys) {
+            if (imageVariants.master(key).isPresent())
+                continue;
+            if (pending == 0 && imageVariants.enqueue(key))
+                queued++;
+            else
+                pending++;
+        }
+        if (queued > 0 || pending > 0) {
+            log.info("[Image] Xếp hàng {} ảnh chưa có master; {} ảnh chờ lượt sau (hàng đợi đầy)", queued, pending);
+        }
+    }
+
+    /** Các slot n mà cột laptops.image{n} còn tồn tại. */
+    private List<Integer> blobSlots() {
+        Set<String> columns = jdbc.execute((ConnectionCallback<Set<String>>) con -> {
+            Set<String> names = new HashSet<>();
+            DatabaseMetaData md = con.getMetaData();
+            for (String table : new String[] { "laptops", "LAPTOPS" }) {
+                try (ResultSet rs = md.getColumns(con.getCatalog(), con.getSchema(), table, null)) {
+                    while (rs.next())
+                        names.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+            return names;
+        });
+        List<Integer> slots = new ArrayList<>();
+        for (int slot = 1; slot <= 5; slot++) {
+            if (columns != null && columns.contains("image" + slot))
+                slots.add(slot);
+        }
+        return slots;
+    }
+
+    private int migrateSlot(int slot, boolean dropBlob) {
+        String blob = "image" + slot;
+        String keyCol = "image" + slot + "_key";
+        // Không xoá blob: chỉ xử lý dòng chưa có khoá (lần chạy sau không chép lại)
+        String pending = dropBlob ? blob + " is not null" : blob + " is not null and " + keyCol + " is null";
+        int moved = 0;
+        long lastId = 0;
+        List<Long> ids;
+        do {
+            // Chỉ lấy id (phân trang theo id); blob đọc từng dòng bằng stream để không giữ cả lô trên heap
+            ids = jdbc.queryForList("select id from laptops where " + pending + " and id > ? order by id limit ?",
+                    Long.class, lastId, Math.max(batchSize, 1));
+            for (Long id : ids) {
+                lastId = id;
+                String key = jdbc.query("select " + blob + " from laptops where id = ?", rs -> {
+                    if (!rs.next())
+                        return null;
+                    try (InputStream in = rs.getBinaryStream(1)) {
+                        return in == null ? null : imageStore.put(in);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, id);
+                if (dropBlob) {
+                    jdbc.update("update laptops set " + keyCol + " = coalesce(?, " + keyCol + "), " + blob
+                            + " = null where id = ?", key, id);
+                } else if (key != null) {
+                    jdbc.update("update laptops set " + keyCol + " = ? where id = ?", key, id);
+                }
+                moved++;
+            }
+        } while (!ids.isEmpty());
+        return moved;
+    }
+}
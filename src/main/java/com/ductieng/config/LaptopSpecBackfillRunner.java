@@ -0,0 +1,46 @@
+package com.ductieng.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.ductieng.service.LaptopService;
+
+/**
+ * Job chạy 1 lần lúc khởi động: bóc RAM/CPU cho các laptop cũ chưa có cột
+ * ram_gb / cpu_family / cpu_model. Mỗi lô là 1 transaction riêng.
+ */
+@Component
+public class LaptopSpecBackfillRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LaptopSpecBackfillRunner.class);
+
+    private final LaptopService laptopService;
+
+    @Value("${app.catalog.spec-backfill.batch-size:200}")
+    private int batchSize;
+
+    public LaptopSpecBackfillRunner(LaptopService laptopService) {
+        this.laptopService = laptopService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int total = 0;
+        try {
+            int n;
+            while ((n = laptopService.backfillSpecs(batchSize)) > 0) {
+                total += n;
+            }
+        } catch (Exception e) {
+            log.warn("[Catalog] Backfill thông số laptop dừng sau {} dòng: {}", total, e.getMessage());
+            return;
+        }
+        if (total > 0) {
+            log.info("[Catalog] Đã backfill thông số RAM/CPU cho {} laptop", total);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ductieng.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ductieng.service.ReviewService;
+
+/**
+ * Đối soát cột tổng hợp rating (rating_sum / rating_count / rating_1..5) với bảng reviews:
+ * chạy 1 lần lúc khởi động (điền số cho dữ liệu cũ) và định kỳ mỗi đêm để sửa lệch
+ * (review bị xoá/sửa thẳng trong DB, lỗi giữa chừng...).
+ */
+@Component
+public class RatingReconcileJob implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingReconcileJob.class);
+
+    private final ReviewService reviewService;
+
+    public RatingReconcileJob(ReviewService reviewService) {
+        this.reviewService = reviewService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reconcile();
+    }
+
+    @Scheduled(cron = "${app.reviews.rating-reconcile.cron:0 30 3 * * *}")
+    public void reconcile() {
+        try {
+            int fixed = reviewService.reconcileRatings();
+            if (fixed > 0) {
+                log.info("[Rating] Đã sửa số tổng hợp rating cho {} laptop", fixed);
+            }
+        } catch (Exception e) {
+            log.warn("[Rating] Đối soát rating thất bại: {}", e.getMessage());
+        }
+    }
+}
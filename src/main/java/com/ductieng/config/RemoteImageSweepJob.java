@@ -0,0 +1,30 @@
+package com.ductieng.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ductieng.service.RemoteImageCache;
+
+/** Dọn cache ảnh ngoài (danh sách URL lỗi, dung lượng images/remote) định kỳ. */
+@Component
+public class RemoteImageSweepJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteImageSweepJob.class);
+
+    private final RemoteImageCache remoteImages;
+
+    public RemoteImageSweepJob(RemoteImageCache remoteImages) {
+        this.remoteImages = remoteImages;
+    }
+
+    @Scheduled(cron = "${app.images.remote.sweep.cron:0 */10 * * * *}")
+    public void sweep() {
+        try {
+            remoteImages.sweep();
+        } catch (Exception e) {
+            log.warn("[Image] Dọn cache ảnh ngoài thất bại: {}", e.getMessage());
+        }
+    }
+}
@@ -67,8 +67,9 @@ public class SecurityConfig {
 
                                 .authorizeHttpRequests(auth -> auth
                                                 .requestMatchers(
-                                                                "/css/**", "/js/**", "/images/**", "/favicon.ico",
+                                                                "/css/**", "/js/**", "/images/**", "/avatars/**", "/favicon.ico",
                                                                 "/", "/laptops/**",
+                                                                "/api/laptops/**", "/api/search/**",
                                                                 "/product/**",
                                                                 "/login", "/register",
                                                                 "/auth/**", // <--- mở quyền cho /auth/check-unique
@@ -0,0 +1,45 @@
+package com.ductieng.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.session.jdbc.MySqlJdbcIndexedSessionRepositoryCustomizer;
+
+/**
+ * HTTP session lưu DB bằng Spring Session JDBC (Boot tự cấu hình khi có spring-session-jdbc):
+ * bảng SPRING_SESSION / SPRING_SESSION_ATTRIBUTES, mọi node đọc chung nên load balancer
+ * không cần sticky session. Muốn quay về session trong RAM của Tomcat (chạy 1 node khi dev)
+ * thì exclude SessionAutoConfiguration. Cache / index trong RAM của từng node được làm mới
+ * qua bảng cache_signals (ClusterSignals), không cần sticky session.
+ * <p>
+ * Mọi thứ để trong session phải Serializable và đủ nhỏ: giỏ hàng chỉ giữ CartState,
+ * giảm giá là vài giá trị đơn giản, cờ thông báo là Boolean.
+ */
+@Configuration
+public class SessionConfig {
+
+    @Bean
+    public CompactSessionSerializer compactSessionSerializer(
+            @Value("${app.session.compress-threshold:512}") int threshold) {
+        return new CompactSessionSerializer(SessionConfig.class.getClassLoader(), threshold);
+    }
+
+    /** Tên bean cố định mà Spring Session dùng để (de)serialize giá trị thuộc tính. */
+    @Bean("springSessionConversionService")
+    public ConversionService springSessionConversionService(CompactSessionSerializer serializer) {
+        GenericConversionService conversion = new GenericConversionService();
+        conversion.addConverter(Object.class, byte[].class, new SerializingConverter(serializer));
+        conversion.addConverter(byte[].class, Object.class, new DeserializingConverter(serializer));
+        return conversion;
+    }
+
+    /** MySQL: ghi thuộc tính bằng INSERT ... ON DUPLICATE KEY UPDATE (không lỗi trùng khoá khi 2 request song song). */
+    @Bean
+    public MySqlJdbcIndexedSessionRepositoryCustomizer mySqlSessionRepositoryCustomizer() {
+        return new MySqlJdbcIndexedSessionRepositoryCustomizer();
+    }
+}
@@ -2,10 +2,15 @@ package com.ductieng.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.ductieng.service.AvatarService;
+
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 
 @Configuration
 public class StaticResourceConfig implements WebMvcConfigurer {
@@ -16,5 +21,10 @@ public class StaticResourceConfig implements WebMvcConfigurer {
     Path uploadPath = Paths.get(baseDir).toAbsolutePath().normalize();
     registry.addResourceHandler("/uploads/**")
             .addResourceLocations(uploadPath.toUri().toString());
+    // Avatar: tên file chứa hash nội dung (AvatarService) -> cache vĩnh viễn
+    String avatars = uploadPath.resolve("avatars").toUri().toString();
+    registry.addResourceHandler(AvatarService.URL_PREFIX + "**")
+            .addResourceLocations(avatars.endsWith("/") ? avatars : avatars + "/")
+            .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable());
   }
 }
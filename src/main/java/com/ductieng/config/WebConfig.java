@@ -7,6 +7,7 @@ import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import com.ductieng.web.AnnouncementOncePerLoginInterceptor;
+import com.ductieng.web.ConditionalGetInterceptor;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,6 +18,9 @@ public class WebConfig implements WebMvcConfigurer {
   @Autowired
   private AnnouncementOncePerLoginInterceptor annInterceptor;
 
+  @Autowired
+  private ConditionalGetInterceptor conditionalGetInterceptor;
+
   @Override
   public void addResourceHandlers(ResourceHandlerRegistry registry) {
     // Map URL /uploads/** -> thư mục "uploads" ở project root (ngoài classpath)
@@ -30,5 +34,7 @@ public class WebConfig implements WebMvcConfigurer {
   public void addInterceptors(InterceptorRegistry registry) {
     // Interceptor để hiển thị thông báo mã giảm giá 1 lần sau khi đăng nhập
     registry.addInterceptor(annInterceptor).addPathPatterns("/**");
+    // ETag / 304 cho trang danh sách + chi tiết SP (đăng ký sau annInterceptor để biết trang có popup hay không)
+    registry.addInterceptor(conditionalGetInterceptor).addPathPatterns("/", "/laptops", "/product/*");
   }
 }
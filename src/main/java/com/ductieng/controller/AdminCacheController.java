@@ -0,0 +1,67 @@
+package com.ductieng.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ductieng.config.CompactSessionSerializer;
+import com.ductieng.service.ClusterSignals;
+import com.ductieng.service.ImageVariants;
+import com.ductieng.service.ListingPageCache;
+import com.ductieng.service.ProductDetailService;
+import com.ductieng.service.ReferenceDataCache;
+import com.ductieng.service.RemoteImageCache;
+import com.ductieng.service.ResizedImageCache;
+import com.ductieng.service.UploadService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Số liệu hit / miss / eviction của các cache đọc, kích thước session, biến thể ảnh, upload,
+ * tín hiệu huỷ cache giữa các node (chỉ ADMIN).
+ */
+@RestController
+@RequestMapping("/admin/api/cache")
+public class AdminCacheController {
+
+    private final ListingPageCache listingPageCache;
+    private final ProductDetailService productDetailService;
+    private final ReferenceDataCache referenceData;
+    private final CompactSessionSerializer sessionSerializer;
+    private final ImageVariants imageVariants;
+    private final ResizedImageCache resizedImages;
+    private final UploadService uploads;
+    private final RemoteImageCache remoteImages;
+    private final ClusterSignals clusterSignals;
+
+    public AdminCacheController(ListingPageCache listingPageCache, ProductDetailService productDetailService,
+            ReferenceDataCache referenceData, CompactSessionSerializer sessionSerializer,
+            ImageVariants imageVariants, ResizedImageCache resizedImages, UploadService uploads,
+            RemoteImageCache remoteImages, ClusterSignals clusterSignals) {
+        this.listingPageCache = listingPageCache;
+        this.productDetailService = productDetailService;
+        this.referenceData = referenceData;
+        this.sessionSerializer = sessionSerializer;
+        this.imageVariants = imageVariants;
+        this.resizedImages = resizedImages;
+        this.uploads = uploads;
+        this.remoteImages = remoteImages;
+        this.clusterSignals = clusterSignals;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("listingPages", listingPageCache.stats());
+        out.put("productDetails", productDetailService.stats());
+        out.put("referenceData", referenceData.stats());
+        out.put("sessionAttributes", sessionSerializer.stats());
+        out.put("imageVariants", imageVariants.stats());
+        out.put("resizedImages", resizedImages.stats());
+        out.put("uploads", uploads.stats());
+        out.put("remoteImages", remoteImages.stats());
+        out.put("clusterSignals", clusterSignals.stats());
+        return out;
+    }
+}
@@ -17,6 +17,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.ductieng.dto.ImageKeys;
+import com.ductieng.dto.ProductRow;
 import com.ductieng.dto.RevenueDataDto;
 import com.ductieng.dto.TopProductDto;
 import com.ductieng.exception.EmailExistsException;
@@ -26,9 +28,13 @@ import com.ductieng.repository.CategoryRepository;
 import com.ductieng.repository.DiscountRepository;
 import com.ductieng.repository.OrderRepository;
 import com.ductieng.repository.UserRepository;
+import com.ductieng.service.ImageStore;
+import com.ductieng.service.ImageVariants;
 import com.ductieng.service.LaptopService;
 import com.ductieng.service.OrderService;
 import com.ductieng.service.ProductService;
+import com.ductieng.service.ReferenceDataCache;
+import com.ductieng.service.UploadService;
 import com.ductieng.service.UserService;
 
 import java.io.IOException;
@@ -55,6 +61,10 @@ public class AdminController {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final com.ductieng.service.BrandService brandService;
+    private final ReferenceDataCache referenceData;
+    private final ImageStore imageStore;
+    private final ImageVariants imageVariants;
+    private final UploadService uploads;
 
     @Autowired
     public AdminController(ProductService productService,
@@ -65,7 +75,11 @@ public class AdminController {
             CategoryRepository categoryRepo,
             OrderRepository orderRepository,
             UserRepository userRepository,
-            com.ductieng.service.BrandService brandService) {
+            com.ductieng.service.BrandService brandService,
+            ReferenceDataCache referenceData,
+            ImageStore imageStore,
+            ImageVariants imageVariants,
+            UploadService uploads) {
         this.productService = productService;
         this.userService = userService;
         this.orderService = orderService;
@@ -75,6 +89,10 @@ public class AdminController {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.brandService = brandService;
+        this.referenceData = referenceData;
+        this.imageStore = imageStore;
+        this.imageVariants = imageVariants;
+        this.uploads = uploads;
     }
 
     // Ngăn hiển thị số mũ
@@ -88,7 +106,7 @@ public class AdminController {
 
     @ModelAttribute("categories")
     public List<Category> categories() {
-        return categoryRepo.findAll();
+        return referenceData.categories();
     }
 
     // ================== DASHBOARD ==================
@@ -101,7 +119,7 @@ public class AdminController {
             @RequestParam(value = "endMonth", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth endMonth,
             Model model) {
         // Dữ liệu list
-        List<Product> products = productService.findAll();
+        List<ProductRow> products = productService.findAllRows();
         List<User> users = userService.findAll();
 
         // Đơn PENDING để hiện "Đơn mới cần duyệt" & section Orders
@@ -455,33 +473,27 @@ public class AdminController {
             List<MultipartFile> files = (imageFiles != null) ? new ArrayList<>(imageFiles) : new ArrayList<>();
             while (files.size() < 5)
                 files.add(null);
+            List<String> uploadedKeys = new ArrayList<>();
 
             for (int idx = 0; idx < 5; idx++) {
                 MultipartFile file = files.get(idx);
-                byte[] data = null;
+                int slot = idx + 1;
+                String key = null;
                 if (file != null && !file.isEmpty()) {
+                    // Ghi thẳng luồng upload vào ImageStore (khoá = hash nội dung, trùng thì dùng lại).
+                    // UploadService chỉ kiểm tra cỡ + magic bytes; giải mã / xoay / thu nhỏ chạy ở ImageVariants.
+                    // Lỗi ghi file -> báo lỗi như ảnh bị từ chối, không lưu SP với slot trống
                     try {
-                        data = file.getBytes();
-                    } catch (IOException ignore) {
+                        key = uploads.consume(file, UploadService.Kind.PRODUCT_IMAGE, imageStore::put);
+                    } catch (IOException e) {
+                        throw new IOException("Không lưu được ảnh " + slot + ": " + e.getMessage(), e);
                     }
                 }
-                int slot = idx + 1;
-                if (data != null && data.length > 0) {
-                    switch (slot) {
-                        case 1 -> product.setImage1(data);
-                        case 2 -> product.setImage2(data);
-                        case 3 -> product.setImage3(data);
-                        case 4 -> product.setImage4(data);
-                        case 5 -> product.setImage5(data);
-                    }
+                if (key != null) {
+                    product.setImageKey(slot, key);
+                    uploadedKeys.add(key);
                 } else if (existing != null) {
-                    switch (slot) {
-                        case 1 -> product.setImage1(existing.getImage1());
-                        case 2 -> product.setImage2(existing.getImage2());
-                        case 3 -> product.setImage3(existing.getImage3());
-                        case 4 -> product.setImage4(existing.getImage4());
-                        case 5 -> product.setImage5(existing.getImage5());
-                    }
+                    product.setImageKey(slot, existing.getImageKey(slot));
                 }
             }
 
@@ -510,6 +522,8 @@ public class AdminController {
 
             // LƯU và lấy đối tượng đã lưu
             Product saved = productService.save(product);
+            // Chỉ xử lý ảnh khi SP đã lưu xong (lỗi validate/lưu -> không tốn pool nền cho ảnh mồ côi)
+            uploadedKeys.forEach(imageVariants::enqueue); // chuẩn hoá + sinh thumb/card/detail ở luồng nền
 
             try {
                 com.ductieng.model.Laptop lap = laptopService.findById(saved.getId());
@@ -517,7 +531,7 @@ public class AdminController {
                     int safeFeatured = (featuredIndex != null && hasImageAt(saved, featuredIndex))
                             ? featuredIndex
                             : (firstAvailableImageIndex(saved) != null ? firstAvailableImageIndex(saved) : 1);
-                    lap.setImageUrl("/product/" + saved.getId() + "/image/" + safeFeatured);
+                    lap.setImageUrl(ImageKeys.url(saved.getId(), safeFeatured, saved.getImageKey(safeFeatured)));
 
                     if (lap.getImages() != null) {
                         lap.getImages().clear();
@@ -525,18 +539,10 @@ public class AdminController {
                         lap.setImages(new java.util.ArrayList<>());
                     }
                     for (int idx = 1; idx <= 5; idx++) {
-                        byte[] d = switch (idx) {
-                            case 1 -> saved.getImage1();
-                            case 2 -> saved.getImage2();
-                            case 3 -> saved.getImage3();
-                            case 4 -> saved.getImage4();
-                            case 5 -> saved.getImage5();
-                            default -> null;
-                        };
-                        if (d != null && d.length > 0) {
+                        if (hasImageAt(saved, idx)) {
                             lap.getImages().add(
                                     new com.ductieng.model.LaptopImage(
-                                            lap, "/product/" + saved.getId() + "/image/" + idx));
+                                            lap, ImageKeys.url(saved.getId(), idx, saved.getImageKey(idx))));
                         }
                     }
                     laptopService.save(lap);
@@ -563,15 +569,7 @@ public class AdminController {
     }
 
     private boolean hasImageAt(Product p, int idx) {
-        byte[] data = switch (idx) {
-            case 1 -> p.getImage1();
-            case 2 -> p.getImage2();
-            case 3 -> p.getImage3();
-            case 4 -> p.getImage4();
-            case 5 -> p.getImage5();
-            default -> null;
-        };
-        return data != null && data.length > 0;
+        return p.getImageKey(idx) != null;
     }
 
     private Integer firstAvailableImageIndex(Product p) {
@@ -0,0 +1,29 @@
+package com.ductieng.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ductieng.service.ImageVariants;
+
+import java.util.List;
+import java.util.Map;
+
+/** Trạng thái xử lý ảnh sau upload (form sửa sản phẩm hỏi định kỳ) – chỉ ADMIN. */
+@RestController
+@RequestMapping("/admin/api/images")
+public class AdminImageController {
+
+    private final ImageVariants imageVariants;
+
+    public AdminImageController(ImageVariants imageVariants) {
+        this.imageVariants = imageVariants;
+    }
+
+    /** ?keys=k1,k2,... -> {k1: {state, error}, ...} */
+    @GetMapping("/status")
+    public Map<String, ImageVariants.Status> status(@RequestParam("keys") List<String> keys) {
+        return imageVariants.status(keys.size() > 20 ? keys.subList(0, 20) : keys);
+    }
+}
@@ -5,13 +5,13 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.ductieng.model.Review;
 import com.ductieng.repository.ReviewRepository;
+import com.ductieng.service.ReviewService;
 
 @Controller
 @RequestMapping("/admin/reviews")
@@ -19,9 +19,11 @@ import com.ductieng.repository.ReviewRepository;
 public class AdminReviewController {
 
     private final ReviewRepository reviewRepo;
+    private final ReviewService reviewService;
 
-    public AdminReviewController(ReviewRepository reviewRepo) {
+    public AdminReviewController(ReviewRepository reviewRepo, ReviewService reviewService) {
         this.reviewRepo = reviewRepo;
+        this.reviewService = reviewService;
     }
 
     /**
@@ -75,13 +77,11 @@ public class AdminReviewController {
      * Xoá review.
      */
     @PostMapping("/{id}/delete")
-    @Transactional
     public String deleteReview(@PathVariable Long id, RedirectAttributes ra) {
-        if (!reviewRepo.existsById(id)) {
+        if (!reviewService.deleteById(id)) {
             ra.addFlashAttribute("error", "Review #" + id + " không tồn tại.");
             return "redirect:/admin/reviews";
         }
-        reviewRepo.deleteById(id);
         ra.addFlashAttribute("message", "Đã xóa đánh giá #" + id);
         return "redirect:/admin/reviews";
     }
@@ -1,19 +1,19 @@
 package com.ductieng.controller;
 
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import com.ductieng.dto.CatalogFacets;
+import com.ductieng.dto.LaptopCard;
+import com.ductieng.dto.LaptopFilter;
 import com.ductieng.dto.RatingAgg;
-import com.ductieng.model.Laptop;
 import com.ductieng.service.AnnouncementService;
 import com.ductieng.service.CartService;
 import com.ductieng.service.LaptopService;
-import com.ductieng.service.ReviewService;
+import com.ductieng.service.ListingPageCache;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,21 +21,19 @@ import java.util.stream.Collectors;
 @Controller
 public class HomeController {
 
-    private static final int MAX_FETCH = 10_000; // đủ lớn cho data hiện tại
-
     private final LaptopService laptopService;
     private final CartService cartService;
     private final AnnouncementService announcementService;
-    private final ReviewService reviewService;
+    private final ListingPageCache pageCache;
 
     public HomeController(LaptopService laptopService,
             CartService cartService,
             AnnouncementService announcementService,
-            ReviewService reviewService) {
+            ListingPageCache pageCache) {
         this.laptopService = laptopService;
         this.cartService = cartService;
         this.announcementService = announcementService;
-        this.reviewService = reviewService;
+        this.pageCache = pageCache;
     }
 
     @GetMapping({ "/", "/laptops" })
@@ -55,73 +53,25 @@ public class HomeController {
         String key = (category == null ? "all" : category.toLowerCase()).trim();
 
         // Map chuỗi tab cũ -> id danh mục trong DB
-        if (categoryId == null && !"all".equals(key)) {
-            Map<String, Long> legacy = Map.of(
-                    "office", 1L,
-                    "study", 2L,
-                    "gaming", 3L);
-            categoryId = legacy.get(key);
-        }
-
-        // 1) Lấy TẤT CẢ (đủ lớn) theo brand + sort để bảo toàn thứ tự hiển thị
-        Page<Laptop> allSorted = laptopService.search(brand, 0, MAX_FETCH, sort);
-        List<Laptop> base = new ArrayList<>(allSorted.getContent());
-
-        // 2) Lọc theo categoryId nếu có
-        if (categoryId != null) {
-            final Long cid = categoryId;
-            base = base.stream()
-                    .filter(l -> l.getCategory() != null
-                            && l.getCategory().getId() != null
-                            && l.getCategory().getId().equals(cid))
-                    .collect(Collectors.toList());
-        }
-
-        // 3) Lọc các bộ lọc phụ trong bộ nhớ
-        List<Laptop> filtered = base.stream()
-                .filter(l -> {
-                    // Giá
-                    if (priceRange != null && !priceRange.isBlank()) {
-                        String[] p = priceRange.split("-");
-                        double min = p[0].isEmpty() ? 0 : Double.parseDouble(p[0]);
-                        double max = (p.length < 2 || p[1].isEmpty()) ? Double.MAX_VALUE : Double.parseDouble(p[1]);
-                        if (l.getPrice() < min || l.getPrice() > max)
-                            return false;
-                    }
-                    // RAM
-                    if (ram != null && !ram.isBlank()) {
-                        int r = Integer.parseInt(ram.replace(" GB", "").trim());
-                        if (l.getRam() != r)
-                            return false;
-                    }
-                    // CPU
-                    if (cpu != null && !cpu.isBlank()) {
-                        if (l.getCpu() == null || !l.getCpu().contains(cpu))
-                            return false;
-                    }
-                    // Hãng
-                    if (brandFilter != null && !brandFilter.isBlank()) {
-                        if (l.getBrand() == null || !l.getBrand().equalsIgnoreCase(brandFilter))
-                            return false;
-                    }
-                    return true;
-                })
-                .collect(Collectors.toList());
-
-        // 4) TỰ PHÂN TRANG sau khi đã lọc
-        int total = filtered.size();
-        int lastPage = (total == 0) ? 0 : Math.max(0, (int) Math.ceil((double) total / size) - 1);
-        int pageClamped = Math.min(Math.max(page, 0), lastPage);
-
-        int from = Math.min(pageClamped * size, total);
-        int to = Math.min(from + size, total);
-        List<Laptop> pageContent = (from < to) ? filtered.subList(from, to) : List.of();
-
-        Page<Laptop> pageLaptops = new PageImpl<>(pageContent, PageRequest.of(pageClamped, size), total);
-
-        // 4.5) TÍNH RATING CHO CÁC SẢN PHẨM TRONG TRANG HIỆN TẠI
-        var ids = pageContent.stream().map(Laptop::getId).toList();
-        Map<Long, RatingAgg> aggMap = reviewService.ratingAgg(ids);
+        categoryId = LaptopFilter.resolveCategoryId(key, categoryId);
+
+        // 1) Lọc + sắp xếp + phân trang (trang vượt quá sẽ bị kẹp về trang cuối)
+        // 2) Rating cho các sản phẩm trong trang
+        // Cả 2 được cache theo bộ lọc + trang, tự huỷ khi SP / tồn kho / giá / review đổi
+        LaptopFilter filter = LaptopFilter.of(brand, categoryId, priceRange, ram, cpu, brandFilter);
+        ListingPageCache.Cached cached = pageCache.get(filter, page, size, sort, () -> {
+            Page<LaptopCard> p = laptopService.filter(filter, page, size, sort);
+            // Rating lấy luôn từ cột tổng hợp trong thẻ, không cần truy vấn reviews
+            Map<Long, RatingAgg> ratings = p.getContent().stream()
+                    .map(LaptopCard::rating)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toMap(RatingAgg::laptopId, r -> r));
+            return new ListingPageCache.Cached(p, ratings);
+        });
+        Page<LaptopCard> pageLaptops = cached.page();
+        List<LaptopCard> pageContent = pageLaptops.getContent();
+        int pageClamped = pageLaptops.getNumber();
+        Map<Long, RatingAgg> aggMap = cached.ratings();
 
         // % = avg/5*100 (làm tròn) để fill sao
         Map<Long, Integer> ratingPct = aggMap.entrySet().stream()
@@ -129,7 +79,7 @@ public class HomeController {
                         Map.Entry::getKey,
                         e -> (int) Math.round(((e.getValue().avg() == null ? 0.0 : e.getValue().avg()) / 5.0) * 100)));
 
-        // 5) Model attributes cho view
+        // 3) Model attributes cho view
         model.addAttribute("products", pageContent);
         model.addAttribute("category", key);
         model.addAttribute("selectedCategoryId", categoryId);
@@ -148,8 +98,19 @@ public class HomeController {
         model.addAttribute("ratingAgg", aggMap);
         model.addAttribute("ratingPct", ratingPct);
 
-        // Lấy danh sách brand từ DB để hiển thị filter động
-        List<String> allBrands = laptopService.getAllBrands();
+        // Số sản phẩm theo từng lựa chọn lọc (tính từ index in-memory)
+        CatalogFacets facets = laptopService.facets(filter);
+        model.addAttribute("facets", facets);
+
+        // Lấy danh sách brand từ DB để hiển thị filter động,
+        // ẩn brand không còn sản phẩm nào khớp bộ lọc hiện tại (trừ brand đang chọn)
+        Set<String> liveBrands = facets.brands().keySet().stream()
+                .map(b -> b.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        List<String> allBrands = laptopService.getAllBrands().stream()
+                .filter(b -> liveBrands.contains(b.toLowerCase(Locale.ROOT))
+                        || b.equalsIgnoreCase(brandFilter))
+                .toList();
         model.addAttribute("allBrands", allBrands);
 
         // Badge giỏ hàng + Thông báo
@@ -0,0 +1,110 @@
+package com.ductieng.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.ductieng.dto.CatalogFacets;
+import com.ductieng.dto.CursorPage;
+import com.ductieng.dto.LaptopCard;
+import com.ductieng.dto.LaptopFilter;
+import com.ductieng.dto.ReviewView;
+import com.ductieng.service.LaptopService;
+import com.ductieng.service.ReviewService;
+
+import java.util.List;
+
+/**
+ * API JSON cho trang danh sách laptop (sidebar lọc, AJAX).
+ * Nhận đúng bộ tham số như /laptops.
+ */
+@RestController
+@RequestMapping("/api/laptops")
+public class LaptopApiController {
+
+    private final LaptopService laptopService;
+    private final ReviewService reviewService;
+
+    public LaptopApiController(LaptopService laptopService, ReviewService reviewService) {
+        this.laptopService = laptopService;
+        this.reviewService = reviewService;
+    }
+
+    /**
+     * Danh sách laptop dạng JSON, phân trang theo con trỏ (keyset) thay cho số trang:
+     * gửi lại nextCursor của lần trước để lấy trang kế, nextCursor = null là hết.
+     * Cursor gắn với kiểu sort lúc tạo; đổi sort thì bắt đầu lại từ đầu.
+     */
+    @GetMapping
+    public CursorPage<LaptopItem> list(
+            @RequestParam(required = false) String brand,
+            @RequestParam(defaultValue = "all") String category,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String priceRange,
+            @RequestParam(required = false) String ram,
+            @RequestParam(required = false) String cpu,
+            @RequestParam(required = false) String brandFilter,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size) {
+        LaptopFilter filter = LaptopFilter.of(brand,
+                LaptopFilter.resolveCategoryId(category, categoryId),
+                priceRange, ram, cpu, brandFilter);
+        int s = Math.min(Math.max(size, 1), 48);
+        try {
+            CursorPage<LaptopCard> page = laptopService.scroll(filter, sort, cursor, s);
+            return new CursorPage<>(page.items().stream().map(LaptopItem::of).toList(), page.nextCursor());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Số sản phẩm khớp theo từng brand / RAM / họ CPU / danh mục / khoảng giá
+     * cho tổ hợp bộ lọc hiện tại. Tính trong 1 lượt trên index in-memory,
+     * không chạy COUNT riêng cho từng nhóm.
+     */
+    @GetMapping("/facets")
+    public CatalogFacets facets(
+            @RequestParam(required = false) String brand,
+            @RequestParam(defaultValue = "all") String category,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String priceRange,
+            @RequestParam(required = false) String ram,
+            @RequestParam(required = false) String cpu,
+            @RequestParam(required = false) String brandFilter) {
+        LaptopFilter filter = LaptopFilter.of(brand,
+                LaptopFilter.resolveCategoryId(category, categoryId),
+                priceRange, ram, cpu, brandFilter);
+        return laptopService.facets(filter);
+    }
+
+    /** Tìm kiếm full-text, trả danh sách rút gọn theo độ liên quan. */
+    @GetMapping("/search")
+    public List<LaptopItem> search(@RequestParam("q") String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        int lim = Math.min(Math.max(limit, 1), 50);
+        return laptopService.searchText(q, lim).stream()
+                .map(LaptopItem::of)
+                .toList();
+    }
+
+    /** Review của 1 laptop, mới nhất trước, phân trang theo cursor như danh sách laptop. */
+    @GetMapping("/{id}/reviews")
+    public CursorPage<ReviewView> reviews(@PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return reviewService.scroll(id, cursor, Math.min(Math.max(size, 1), 50));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // DTO trả JSON
+    record LaptopItem(Long id, String name, String brand, Double price, String imageUrl) {
+        static LaptopItem of(LaptopCard c) {
+            return new LaptopItem(c.id(), c.name(), c.brand(), c.price(), c.imageUrl());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ductieng.controller;
 
 import net.coobird.thumbnailator.Thumbnails;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.http.CacheControl;
@@ -11,11 +12,19 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
 import com.ductieng.model.Laptop;
+import com.ductieng.service.ImageStore;
+import com.ductieng.service.ImageVariants;
 import com.ductieng.service.LaptopService;
+import com.ductieng.service.RemoteImageCache;
+import com.ductieng.service.ResizedImageCache;
+import com.ductieng.util.ImageTypes;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.TimeUnit;
 
 @Controller
@@ -24,79 +33,135 @@ public class LaptopImageController {
 
     private final LaptopService laptopService;
     private final ResourceLoader resourceLoader;
-
-    public LaptopImageController(LaptopService laptopService, ResourceLoader resourceLoader) {
+    private final ImageStore imageStore;
+    private final ImageVariants imageVariants;
+    private final ResizedImageCache resizeCache;
+    private final RemoteImageCache remoteImages;
+
+    public LaptopImageController(LaptopService laptopService, ResourceLoader resourceLoader,
+            ImageStore imageStore, ImageVariants imageVariants, ResizedImageCache resizeCache,
+            RemoteImageCache remoteImages) {
         this.laptopService = laptopService;
         this.resourceLoader = resourceLoader;
+        this.imageStore = imageStore;
+        this.imageVariants = imageVariants;
+        this.resizeCache = resizeCache;
+        this.remoteImages = remoteImages;
     }
 
     /**
      * Dùng: /laptop/{id}/image/{index}?w=...&h=...
      * Quy ước:
+     *  - slot có ảnh trong ImageStore -> trả biến thể sinh sẵn (w/h làm tròn lên cỡ gần nhất,
+     *    WebP nếu trình duyệt nhận), chưa có biến thể thì trả ảnh gốc
      *  - index=1  -> Laptop.imageUrl (ảnh chính)
      *  - index>=2 -> cố thử gọi getImage{index-1}() nếu entity có (ví dụ image1..image5 dạng String URL)
      *  - nếu không có URL -> 404
      */
     @GetMapping("/{id}/image/{index}")
-    public ResponseEntity<byte[]> getImage(
+    public ResponseEntity<?> getImage(
             @PathVariable("id") Long id,
             @PathVariable("index") int index,
             @RequestParam(value = "w", required = false) Integer w,
-            @RequestParam(value = "h", required = false) Integer h
+            @RequestParam(value = "h", required = false) Integer h,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
     ) {
+        String key = laptopService.findImageKey(id, index);
+        if (key != null) {
+            Path original = imageStore.find(key).orElse(null);
+            if (original != null) {
+                return serveStored(key, original, w, h, accept);
+            }
+        }
+
         Laptop l = laptopService.findById(id);
         if (l == null) return ResponseEntity.notFound().build();
 
         String url = pickUrl(l, index);
         if (url == null || url.isBlank()) return ResponseEntity.notFound().build();
 
-        byte[] data = loadBytes(url.trim());
-        if (data == null || data.length == 0) return ResponseEntity.notFound().build();
-
-        String contentType = detectImageContentType(data);
+        String source = url.trim();
+        ResizedImageCache.Resized img;
+        if (w == null && h == null) {
+            byte[] data = loadBytes(source);
+            img = (data == null || data.length == 0) ? null : new ResizedImageCache.Resized(data, ImageTypes.detect(data));
+        } else {
+            // Ảnh ngoài kho (URL cũ): resize theo cỡ chuẩn gần nhất, kết quả giữ trong cache
+            int width = ImageVariants.snap(w, h).width;
+            img = resizeCache.get(new ResizedImageCache.Key(id, index, source, width),
+                    () -> resize(loadBytes(source), width));
+        }
+        if (img == null) return ResponseEntity.notFound().build();
 
-        // Resize nếu có w/h
-        if (w != null || h != null) {
-            try {
-                int width = (w != null ? Math.max(1, w) : 0);
-                int height = (h != null ? Math.max(1, h) : 0);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, img.contentType())
+                .cacheControl(CacheControl.maxAge(3600, TimeUnit.SECONDS).cachePublic())
+                .body(img.data());
+    }
 
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                var thumb = Thumbnails.of(new ByteArrayInputStream(data))
-                        .outputQuality(0.85f);
+    /** Resize về chiều rộng {@code width}, giữ định dạng gần gốc; lỗi thì trả ảnh gốc. */
+    private static ResizedImageCache.Resized resize(byte[] data, int width) {
+        if (data == null || data.length == 0) return null;
+        String contentType = ImageTypes.detect(data);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            var thumb = Thumbnails.of(new ByteArrayInputStream(data))
+                    .width(width)
+                    .outputQuality(0.85f);
+
+            // Cố gắng giữ định dạng gần gốc
+            if (MediaType.IMAGE_PNG_VALUE.equals(contentType)) {
+                thumb.outputFormat("png");
+            } else if ("image/webp".equals(contentType)) {
+                thumb.outputFormat("webp");
+            } else if (MediaType.IMAGE_GIF_VALUE.equals(contentType)) {
+                thumb.outputFormat("gif");
+            } else {
+                thumb.outputFormat("jpeg");
+                contentType = MediaType.IMAGE_JPEG_VALUE;
+            }
 
-                if (width > 0 && height > 0) {
-                    thumb.size(width, height)
-                         .crop(net.coobird.thumbnailator.geometry.Positions.CENTER);
-                } else if (width > 0) {
-                    thumb.width(width);
-                } else {
-                    thumb.height(height);
-                }
+            thumb.toOutputStream(out);
+            return new ResizedImageCache.Resized(out.toByteArray(), contentType);
+        } catch (Exception ignore) {
+            // nếu resize lỗi -> trả ảnh gốc
+            return new ResizedImageCache.Resized(data, ImageTypes.detect(data));
+        }
+    }
 
-                // Cố gắng giữ định dạng gần gốc
-                if (MediaType.IMAGE_PNG_VALUE.equals(contentType)) {
-                    thumb.outputFormat("png");
-                } else if ("image/webp".equals(contentType)) {
-                    thumb.outputFormat("webp");
-                } else if (MediaType.IMAGE_GIF_VALUE.equals(contentType)) {
-                    thumb.outputFormat("gif");
+    /** Ảnh trong kho: file biến thể (hoặc gốc) gửi thẳng, không giải mã / resize. */
+    private ResponseEntity<?> serveStored(String key, Path original, Integer w, Integer h, String accept) {
+        Path master = imageVariants.master(key).orElse(null);
+        Path file = master != null ? master : original;
+        String name = master != null ? "master" : "orig";
+        String contentType;
+        CacheControl cache = CacheControl.maxAge(3600, TimeUnit.SECONDS).cachePublic();
+        try {
+            if (w != null || h != null) {
+                boolean webp = accept != null && accept.contains("image/webp");
+                ImageVariants.Hit hit = imageVariants.find(key, ImageVariants.snap(w, h), webp).orElse(null);
+                if (hit != null) {
+                    file = hit.file();
+                    name = hit.name();
                 } else {
-                    thumb.outputFormat("jpeg");
-                    contentType = MediaType.IMAGE_JPEG_VALUE;
+                    // Biến thể đang sinh: trả ảnh gốc, cache ngắn để lần sau lấy bản nhỏ
+                    cache = CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic();
                 }
-
-                thumb.toOutputStream(out);
-                data = out.toByteArray();
-            } catch (Exception ignore) {
-                // nếu resize lỗi -> trả ảnh gốc
+            } else if (master == null) {
+                // Chưa có master: trả file gốc tạm, xếp hàng xử lý
+                imageVariants.enqueue(key);
+                cache = CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic();
             }
+            contentType = ImageTypes.detect(file);
+        } catch (IOException e) {
+            return ResponseEntity.notFound().build();
         }
-
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_TYPE, contentType)
-                .cacheControl(CacheControl.maxAge(3600, TimeUnit.SECONDS).cachePublic())
-                .body(data);
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .eTag("\"" + key + "-" + name + "\"")
+                .cacheControl(cache)
+                .body(new FileSystemResource(file));
     }
 
     /** Chọn URL theo index (1 = ảnh chính imageUrl; >=2 thử getImage{index-1}() nếu có). */
@@ -116,9 +181,16 @@ public class LaptopImageController {
         }
     }
 
-    /** Tải bytes từ URL/đường dẫn: hỗ trợ http(s), file:, classpath:, và đường dẫn thường (coi như file:). */
+    /**
+     * Tải bytes từ URL/đường dẫn: http(s) qua RemoteImageCache (đọc bản trên đĩa, có timeout,
+     * giới hạn cỡ, làm mới nền), file:, classpath:, và đường dẫn thường (coi như file:).
+     */
     private byte[] loadBytes(String location) {
         try {
+            if (RemoteImageCache.isRemote(location)) {
+                Path cached = remoteImages.get(location).orElse(null);
+                return cached == null ? null : Files.readAllBytes(cached);
+            }
             String loc = normalizeLocation(location);
             Resource res = resourceLoader.getResource(loc);
             try (InputStream is = res.getInputStream()) {
@@ -138,33 +210,4 @@ public class LaptopImageController {
         // Nếu là đường dẫn hệ thống/relative -> prepends file:
         return (location.startsWith("/") ? "file:" : "file:") + location;
     }
-
-    /** Nhận diện content-type từ magic bytes (thêm GIF). */
-    private static String detectImageContentType(byte[] bytes) {
-        if (bytes != null && bytes.length >= 12) {
-            // PNG
-            if (bytes[0] == (byte)0x89 && bytes[1]=='P' && bytes[2]=='N' && bytes[3]=='G') {
-                return MediaType.IMAGE_PNG_VALUE;
-            }
-            // JPEG
-            if (bytes[0] == (byte)0xFF && bytes[1] == (byte)0xD8) {
-                return MediaType.IMAGE_JPEG_VALUE;
-            }
-            // WEBP: "RIFF....WEBP"
-            if (bytes[0]=='R' && bytes[1]=='I' && bytes[2]=='F' && bytes[3]=='F'
-                    && bytes[8]=='W' && bytes[9]=='E' && bytes[10]=='B' && bytes[11]=='P') {
-                return "image/webp";
-            }
-            // AVIF: "....ftypavif"
-            if (bytes[4]=='f' && bytes[5]=='t' && bytes[6]=='y' && bytes[7]=='p'
-                    && bytes[8]=='a' && bytes[9]=='v' && bytes[10]=='i' && bytes[11]=='f') {
-                return "image/avif";
-            }
-            // GIF: "GIF8"
-            if (bytes[0]=='G' && bytes[1]=='I' && bytes[2]=='F' && bytes[3]=='8') {
-                return MediaType.IMAGE_GIF_VALUE;
-            }
-        }
-        return MediaType.IMAGE_JPEG_VALUE;
-    }
 }
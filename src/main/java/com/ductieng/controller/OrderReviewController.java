@@ -6,8 +6,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import com.ductieng.model.*;
-import com.ductieng.repository.ReviewRepository;
 import com.ductieng.service.OrderService;
+import com.ductieng.service.ReviewService;
 import com.ductieng.service.UserService;
 
 import java.util.Map;
@@ -18,12 +18,12 @@ public class OrderReviewController {
 
     private final OrderService orderService;
     private final UserService userService;
-    private final ReviewRepository reviewRepo;
+    private final ReviewService reviewService;
 
-    public OrderReviewController(OrderService orderService, UserService userService, ReviewRepository reviewRepo) {
+    public OrderReviewController(OrderService orderService, UserService userService, ReviewService reviewService) {
         this.orderService = orderService;
         this.userService = userService;
-        this.reviewRepo = reviewRepo;
+        this.reviewService = reviewService;
     }
 
     @PostMapping("/orders/{orderId}/laptops/{laptopId}")
@@ -58,6 +58,6 @@ public class OrderReviewController {
         // Nếu entity Review của dự án có setOrder(Order) thì liên kết, nếu không có cũng không sao.
         try { r.getClass().getMethod("setOrder", Order.class).invoke(r, order); } catch (Exception ignore) {}
 
-        return ResponseEntity.ok(reviewRepo.save(r));
+        return ResponseEntity.ok(reviewService.save(r));
     }
 }
@@ -1,6 +1,7 @@
 package com.ductieng.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
@@ -10,17 +11,20 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.ductieng.dto.CursorPage;
+import com.ductieng.dto.ProductDetail;
+import com.ductieng.dto.ReviewView;
 import com.ductieng.model.Laptop;
 import com.ductieng.model.Review;
 import com.ductieng.model.User;
 import com.ductieng.service.CartService;
 import com.ductieng.service.LaptopService;
+import com.ductieng.service.ProductDetailService;
 import com.ductieng.service.ProductService;
 import com.ductieng.service.ReviewService;
 import com.ductieng.service.UserService;
 
 import java.util.Locale;
-import java.util.NoSuchElementException;
 
 @Controller
 @RequestMapping("/product")
@@ -31,55 +35,38 @@ public class ProductController {
     private final ReviewService reviewService;
     private final UserService userService;
     private final ProductService productService;
+    private final ProductDetailService productDetailService;
 
     public ProductController(LaptopService laptopService,
             CartService cartService,
             ReviewService reviewService,
             UserService userService,
-            ProductService productService) {
+            ProductService productService,
+            ProductDetailService productDetailService) {
         this.laptopService = laptopService;
         this.cartService = cartService;
         this.reviewService = reviewService;
         this.userService = userService;
         this.productService = productService;
+        this.productDetailService = productDetailService;
     }
 
     @GetMapping("/{id}")
     public String detail(@PathVariable Long id, Model m, Authentication auth) {
-        Laptop lap;
-        try {
-            lap = laptopService.findById(id);
-        } catch (NoSuchElementException | IllegalArgumentException ex) {
+        // Phần chung (cache theo SP): lõi + ảnh + rating + trang đầu review
+        ProductDetail detail = productDetailService.get(id);
+        if (detail == null) {
             return "redirect:/?notfound=1";
         }
 
-        // Build carousel từ 5 slot ảnh chi tiết -> /product/{id}/image/{i}
-        try {
-            var imgs = new java.util.ArrayList<com.ductieng.model.LaptopImage>();
-            for (int i = 1; i <= 5; i++) {
-                if (lap.hasImage(i)) {
-                    imgs.add(new com.ductieng.model.LaptopImage(lap, "/product/" + id + "/image/" + i));
-                }
-            }
-            lap.setImages(imgs);
-            if ((lap.getImageUrl() == null || lap.getImageUrl().isBlank()) && !imgs.isEmpty()) {
-                lap.setImageUrl(imgs.get(0).getUrl());
-            }
-        } catch (Exception ignore) {
-        }
+        // Phần riêng người xem: đã mua & nhận hàng (DELIVERED) thì được đánh giá
+        boolean canReview = auth != null && auth.isAuthenticated()
+                && reviewService.canReview(auth.getName(), id);
 
-        // Kiểm tra xem user đã mua sản phẩm này với đơn hàng DELIVERED chưa
-        boolean canReview = false;
-        if (auth != null && auth.isAuthenticated()) {
-            User user = userService.findByUsername(auth.getName());
-            if (user != null) {
-                canReview = reviewService.hasUserPurchasedProduct(user, lap);
-            }
-        }
-
-        m.addAttribute("laptop", lap);
-        m.addAttribute("reviews", reviewService.findByLaptop(lap));
-        m.addAttribute("avgRating", reviewService.averageRating(lap));
+        m.addAttribute("laptop", detail);
+        m.addAttribute("reviews", detail.reviews());
+        m.addAttribute("nextReviewCursor", detail.nextReviewCursor());
+        m.addAttribute("avgRating", detail.avgRating());
         m.addAttribute("canReview", canReview);
         return "product";
     }
@@ -143,7 +130,7 @@ public class ProductController {
 
             if (isAjax) {
                 // Trả HTML của 1 review item để JS prepend vào danh sách
-                model.addAttribute("r", saved);
+                model.addAttribute("r", ReviewView.of(saved));
                 return "fragments/review-item :: item";
             } else {
                 ra.addFlashAttribute("message", "Cảm ơn bạn đã đánh giá sản phẩm!");
@@ -159,12 +146,31 @@ public class ProductController {
         }
     }
 
+    // === Tải thêm review (AJAX): HTML các review-item, cursor trang sau trong header ===
+    @GetMapping(value = "/{id}/reviews", produces = MediaType.TEXT_HTML_VALUE)
+    public String moreReviews(@PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            HttpServletResponse response,
+            Model model) {
+        CursorPage<ReviewView> page;
+        try {
+            page = reviewService.scroll(id, cursor, Math.min(Math.max(size, 1), 50));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (page.nextCursor() != null)
+            response.setHeader("X-Next-Cursor", page.nextCursor());
+        model.addAttribute("reviews", page.items());
+        return "fragments/review-item :: list";
+    }
+
     // === Trả trung bình rating dạng text/plain để JS cập nhật ===
     @GetMapping(value = "/{id}/avg", produces = MediaType.TEXT_PLAIN_VALUE)
     @ResponseBody
     public String avgRating(@PathVariable Long id) {
-        Laptop lap = laptopService.findById(id);
-        double avg = reviewService.averageRating(lap);
+        ProductDetail detail = productDetailService.get(id);
+        double avg = (detail == null) ? 0.0 : detail.avgRating();
         return String.format(Locale.US, "%.1f", avg);
     }
 }
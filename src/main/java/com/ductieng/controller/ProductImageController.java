@@ -1,57 +1,182 @@
 package com.ductieng.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import com.ductieng.model.Laptop;
+import com.ductieng.dto.ImageKeys;
+import com.ductieng.service.ImageStore;
+import com.ductieng.service.ImageVariants;
 import com.ductieng.service.LaptopService;
+import com.ductieng.util.ImageTypes;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.List;
 
+/**
+ * Ảnh SP từ ImageStore (bản master đã chuẩn hoá nếu pipeline xử lý xong).
+ * Có ?w=/?h= thì trả biến thể sinh sẵn gần nhất (WebP nếu trình duyệt nhận, kèm Vary: Accept);
+ * biến thể chưa có thì trả master/gốc và xếp hàng sinh.
+ * <p>
+ * ETag = khoá nội dung (SHA-256) nên 304 không cần đọc file. URL có ?v= khớp phiên bản
+ * hiện tại được cache 1 năm, immutable (đổi ảnh là đổi URL); URL không phiên bản
+ * (dữ liệu cũ) cache ngắn rồi hỏi lại bằng ETag. Hỗ trợ Range 1 đoạn (206).
+ */
 @RestController
 public class ProductImageController {
 
     private final LaptopService laptopService;
+    private final ImageStore imageStore;
+    private final ImageVariants imageVariants;
 
     // PNG 1x1 trong base64 – dùng khi không có ảnh
     private static final byte[] PLACEHOLDER =
             Base64.getDecoder().decode(
                     "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR4nGNgYAAAAAMAASsJTYQAAAAASUVORK5CYII=");
 
-    public ProductImageController(LaptopService laptopService) {
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic();
+
+    // Tomcat NIO/NIO2: servlet chỉ khai báo file, connector gửi bằng sendfile (không qua heap)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    public ProductImageController(LaptopService laptopService, ImageStore imageStore,
+            ImageVariants imageVariants) {
         this.laptopService = laptopService;
+        this.imageStore = imageStore;
+        this.imageVariants = imageVariants;
     }
 
     @GetMapping("/product/{id}/image/{index}")
-    public ResponseEntity<byte[]> getImage(@PathVariable Long id, @PathVariable int index) {
+    public ResponseEntity<byte[]> getImage(@PathVariable Long id, @PathVariable int index,
+            @RequestParam(value = "v", required = false) String v,
+            @RequestParam(value = "w", required = false) Integer w,
+            @RequestParam(value = "h", required = false) Integer h,
+            HttpServletRequest request, HttpServletResponse response) {
         try {
-            Laptop lap = laptopService.findById(id);
-            byte[] data = null;
-            if (lap != null) {
-                data = switch (index) {
-                    case 1 -> lap.getImage1();
-                    case 2 -> lap.getImage2();
-                    case 3 -> lap.getImage3();
-                    case 4 -> lap.getImage4();
-                    case 5 -> lap.getImage5();
-                    default -> null;
-                };
-            }
-            if (data == null || data.length == 0) {
-                // Luôn trả về ảnh hợp lệ để UI không bị 404
+            // Chỉ đọc khoá ảnh (1 câu nhẹ), file gốc nằm trong ImageStore
+            String key = laptopService.findImageKey(id, index);
+            // Ưu tiên bản master đã chuẩn hoá (xoay đúng chiều, bỏ EXIF); chưa xử lý xong thì dùng file gốc
+            Path master = imageVariants.master(key).orElse(null);
+            Path file = master != null ? master : imageStore.find(key).orElse(null);
+            if (master == null && file != null)
+                imageVariants.enqueue(key); // ảnh cũ / hàng đợi từng đầy: xử lý lại để lần sau có master
+            if (file == null) {
+                // Vẫn 200 để UI không vỡ ảnh, nhưng cho cache ngắn: trang sau không tải lại
                 return ResponseEntity.ok()
+                        .cacheControl(REVALIDATE)
                         .contentType(MediaType.IMAGE_PNG)
                         .body(PLACEHOLDER);
             }
-            // Mặc định coi là JPEG; nếu anh lưu PNG/GIF vẫn hiển thị OK trên đa số trình duyệt
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_JPEG)
-                    .body(data);
+
+            String name = master != null ? "m" : "o";
+            boolean temporary = master == null;
+            if (w != null || h != null) {
+                response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                String accept = request.getHeader(HttpHeaders.ACCEPT);
+                boolean webp = accept != null && accept.contains("image/webp");
+                ImageVariants.Hit hit = imageVariants.find(key, ImageVariants.snap(w, h), webp).orElse(null);
+                if (hit != null) {
+                    file = hit.file();
+                    name = hit.name();
+                } else {
+                    temporary = true;
+                }
+            }
+
+            // File gốc chỉ là tạm thời (master/biến thể sắp thay) -> không cho cache vĩnh viễn
+            boolean versioned = !temporary && v != null && v.equals(ImageKeys.version(key));
+            String etag = "\"" + key + "-" + name + "\"";
+            response.setHeader(HttpHeaders.CACHE_CONTROL, (versioned ? IMMUTABLE : REVALIDATE).getHeaderValue());
+            // If-None-Match khớp -> 304, không mở file
+            if (new ServletWebRequest(request, response).checkNotModified(etag))
+                return null;
+
+            sendFile(file, etag, request, response);
+            return null;
         } catch (Exception ex) {
+            if (response.isCommitted())
+                return null;
+            response.reset();
             return ResponseEntity.ok()
                     .contentType(MediaType.IMAGE_PNG)
                     .body(PLACEHOLDER);
         }
     }
+
+    /**
+     * Gửi file (hoặc 1 đoạn nếu có Range hợp lệ): sendfile nếu connector hỗ trợ,
+     * nếu không thì FileChannel.transferTo.
+     */
+    private static void sendFile(Path file, String etag, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+
+            // Content-Type theo magic bytes thật của file
+            ByteBuffer head = ByteBuffer.allocate(ImageTypes.HEAD_BYTES);
+            ch.read(head, 0);
+            response.setContentType(ImageTypes.detect(head.array()));
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+            long start = 0, end = size - 1;
+            String range = request.getHeader(HttpHeaders.RANGE);
+            String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+            if (range != null && (ifRange == null || ifRange.equals(etag))) {
+                List<HttpRange> ranges;
+                try {
+                    ranges = HttpRange.parseRanges(range);
+                } catch (IllegalArgumentException e) {
+                    ranges = List.of();
+                }
+                // Chỉ phục vụ 1 đoạn; nhiều đoạn -> trả cả file (200) như RFC cho phép
+                if (ranges.size() == 1) {
+                    HttpRange r = ranges.get(0);
+                    if (size == 0 || r.getRangeStart(size) >= size) {
+                        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                        return;
+                    }
+                    start = r.getRangeStart(size);
+                    end = r.getRangeEnd(size);
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                }
+            }
+
+            long length = end - start + 1;
+            response.setContentLengthLong(Math.max(length, 0));
+            if ("HEAD".equals(request.getMethod()) || length <= 0)
+                return;
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long pos = start;
+            while (pos <= end) {
+                pos += ch.transferTo(pos, end + 1 - pos, out);
+            }
+        }
+    }
 }
@@ -1,10 +1,6 @@
 package com.ductieng.controller;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 
 import java.util.List;
 
@@ -21,8 +17,10 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.ductieng.exception.UploadRejectedException;
 import com.ductieng.model.Order;
 import com.ductieng.model.User;
+import com.ductieng.service.AvatarService;
 import com.ductieng.service.OrderService;
 import com.ductieng.service.UserService;
 
@@ -35,15 +33,18 @@ public class ProfileController {
     private final OrderService orderService;
     private final PasswordEncoder passwordEncoder;
     private final com.ductieng.service.impl.VNPayService vnPayService;
+    private final AvatarService avatarService;
 
     public ProfileController(UserService userService,
             OrderService orderService,
             PasswordEncoder passwordEncoder,
-            com.ductieng.service.impl.VNPayService vnPayService) {
+            com.ductieng.service.impl.VNPayService vnPayService,
+            AvatarService avatarService) {
         this.userService = userService;
         this.orderService = orderService;
         this.passwordEncoder = passwordEncoder;
         this.vnPayService = vnPayService;
+        this.avatarService = avatarService;
     }
 
     // ========================= Helpers =========================
@@ -196,29 +197,19 @@ public class ProfileController {
         }
 
         try {
-            if (file.isEmpty() || file.getSize() > 2_000_000) {
-                redirectAttributes.addFlashAttribute("error", "Ảnh trống hoặc vượt 2MB.");
+            // Kiểm tra cỡ (2MB) + PNG/JPG, sinh sẵn 32/64/128px; URL đổi theo nội dung ảnh
+            String url = avatarService.save(file);
+            if (url == null) {
+                redirectAttributes.addFlashAttribute("error", "Ảnh trống.");
                 return "redirect:/profile";
             }
-            String ct = file.getContentType();
-            if (ct == null || !(ct.equals("image/png") || ct.equals("image/jpeg"))) {
-                redirectAttributes.addFlashAttribute("error", "Chỉ chấp nhận PNG/JPG.");
-                return "redirect:/profile";
-            }
-
-            String ext = ct.equals("image/png") ? ".png" : ".jpg";
-            Path root = Paths.get("src/main/resources/static/uploads/avatars");
-            Files.createDirectories(root);
-
-            // Đặt tên theo username
-            Path dest = root.resolve(user.getUsername() + ext);
-            Files.copy(file.getInputStream(), dest, StandardCopyOption.REPLACE_EXISTING);
 
-            String url = "/uploads/avatars/" + user.getUsername() + ext;
             user.setAvatarUrl(url);
             userService.save(user);
 
             redirectAttributes.addFlashAttribute("message", "Cập nhật ảnh đại diện thành công.");
+        } catch (UploadRejectedException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
         } catch (IOException e) {
             log.error("Error uploading avatar: {}", e.getMessage(), e);
             redirectAttributes.addFlashAttribute("error", "Lỗi khi lưu ảnh: " + e.getMessage());
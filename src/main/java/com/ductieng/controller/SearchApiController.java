@@ -0,0 +1,35 @@
+package com.ductieng.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.ductieng.service.SuggestIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchApiController {
+
+    private final SuggestIndex suggestIndex;
+
+    public SearchApiController(SuggestIndex suggestIndex) {
+        this.suggestIndex = suggestIndex;
+    }
+
+    /**
+     * Gợi ý khi gõ ở ô tìm kiếm: /api/search/suggest?q=zen
+     * Trả tối đa {limit} mục (tên SP / hãng / CPU) kèm URL để nhảy thẳng.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestIndex.Suggestion>> suggest(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        List<SuggestIndex.Suggestion> out = suggestIndex.suggest(q, Math.min(Math.max(limit, 1), 20));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic())
+                .body(out);
+    }
+}
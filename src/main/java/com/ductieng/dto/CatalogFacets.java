@@ -0,0 +1,18 @@
+package com.ductieng.dto;
+
+import java.util.Map;
+
+/**
+ * Số sản phẩm khớp theo từng lựa chọn của sidebar lọc.
+ * Mỗi nhóm được đếm với tất cả bộ lọc KHÁC đang áp dụng (bỏ qua bộ lọc của chính nhóm đó),
+ * để người dùng thấy chọn sang giá trị khác thì còn bao nhiêu kết quả.
+ */
+public record CatalogFacets(
+        long total,
+        long inStock,
+        Map<String, Long> brands,
+        Map<Integer, Long> ramSizes,
+        Map<String, Long> cpuFamilies,
+        Map<Long, Long> categories,
+        Map<String, Long> priceBuckets) {
+}
@@ -0,0 +1,13 @@
+package com.ductieng.dto;
+
+/** 1 dòng laptop tối giản (không BLOB, không quan hệ) để dựng CatalogIndex. */
+public record CatalogRow(
+        Long id,
+        String brand,
+        Double price,
+        Integer quantity,
+        Integer ramGb,
+        String cpuFamily,
+        String cpuModel,
+        Long categoryId) {
+}
@@ -0,0 +1,7 @@
+package com.ductieng.dto;
+
+import java.util.List;
+
+/** 1 lát kết quả phân trang theo cursor; nextCursor = null khi đã hết. */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,58 @@
+package com.ductieng.dto;
+
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/** Khoá ảnh (ImageStore) của 5 slot ảnh 1 SP; slot trống = null. */
+public record ImageKeys(String key1, String key2, String key3, String key4, String key5) {
+
+    // URL do url() sinh (có thể đã gắn context path); không khớp link ngoài / ảnh tĩnh
+    private static final Pattern PRODUCT_IMAGE = Pattern.compile("^[^:?]*/product/\\d+/image/[1-5](\\?v=\\w+)?$");
+
+    /**
+     * URL ảnh có phiên bản: ?v= là đầu khoá nội dung, đổi ảnh là đổi URL
+     * -> trình duyệt được cache vĩnh viễn (immutable).
+     */
+    public static String url(Long laptopId, int index, String key) {
+        String base = "/product/" + laptopId + "/image/" + index;
+        return key == null ? base : base + "?v=" + version(key);
+    }
+
+    /** Như {@link #url(Long, int, String)} ở cỡ w (server làm tròn lên biến thể sinh sẵn gần nhất). */
+    public static String url(Long laptopId, int index, String key, int width) {
+        return sized(url(laptopId, index, key), width);
+    }
+
+    /** Gắn cỡ w vào URL ảnh SP; URL khác (ảnh tĩnh, link ngoài) giữ nguyên. */
+    public static String sized(String url, int width) {
+        if (url == null || !PRODUCT_IMAGE.matcher(url).matches())
+            return url;
+        return url + (url.indexOf('?') < 0 ? "?" : "&") + "w=" + width;
+    }
+
+    /** Giá trị srcset "url?w=400 400w, ..." cho URL ảnh SP; URL khác -> null (template bỏ thuộc tính). */
+    public static String srcset(String url, int... widths) {
+        if (url == null || !PRODUCT_IMAGE.matcher(url).matches())
+            return null;
+        StringJoiner out = new StringJoiner(", ");
+        for (int w : widths)
+            out.add(sized(url, w) + " " + w + "w");
+        return out.toString();
+    }
+
+    /** Phần khoá dùng làm tham số v (16 hex đầu của SHA-256). */
+    public static String version(String key) {
+        return key.length() > 16 ? key.substring(0, 16) : key;
+    }
+
+    public String key(int index) {
+        return switch (index) {
+            case 1 -> key1;
+            case 2 -> key2;
+            case 3 -> key3;
+            case 4 -> key4;
+            case 5 -> key5;
+            default -> null;
+        };
+    }
+}
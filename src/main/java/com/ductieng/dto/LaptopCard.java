@@ -0,0 +1,21 @@
+package com.ductieng.dto;
+
+import com.ductieng.model.Laptop;
+
+/**
+ * 1 thẻ sản phẩm trên trang danh sách. Chỉ gồm cột nhẹ, không nạp cả entity Laptop.
+ */
+public record LaptopCard(Long id, String name, String brand, Double price, String imageUrl, Integer quantity,
+        Integer ratingSum, Integer ratingCount) {
+
+    public LaptopCard {
+        imageUrl = Laptop.publicImageUrl(imageUrl);
+    }
+
+    /** Rating đọc thẳng từ cột tổng hợp; null nếu chưa có review. */
+    public RatingAgg rating() {
+        if (ratingCount == null || ratingCount == 0)
+            return null;
+        return new RatingAgg(id, (double) ratingSum / ratingCount, (long) ratingCount);
+    }
+}
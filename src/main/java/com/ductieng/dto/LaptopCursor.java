@@ -0,0 +1,47 @@
+package com.ductieng.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Con trỏ keyset cho danh sách laptop: giá trị cột sort + id của dòng cuối trang trước.
+ * Ra ngoài dưới dạng chuỗi base64url mờ (client chỉ việc gửi lại nguyên văn).
+ */
+public record LaptopCursor(String sort, Double price, Long id) {
+
+    public String encode() {
+        String raw = sort + "|" + (price == null ? "" : price.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException nếu chuỗi hỏng hoặc không cùng kiểu sort đang yêu cầu
+     */
+    public static LaptopCursor decode(String token, String expectedSort) {
+        String[] p;
+        try {
+            p = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ", e);
+        }
+        if (p.length != 3)
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        // Lỗi riêng (không gộp vào "không hợp lệ"): client đổi sort nhưng gửi lại cursor cũ
+        if (!p[0].equals(normalizeSort(expectedSort)))
+            throw new IllegalArgumentException("Cursor không khớp kiểu sắp xếp");
+        try {
+            Double price = p[1].isEmpty() ? null : Double.valueOf(p[1]);
+            return new LaptopCursor(p[0], price, Long.valueOf(p[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ", e);
+        }
+    }
+
+    /** new | priceAsc | priceDesc; còn lại (kể cả null) = id tăng dần "". */
+    public static String normalizeSort(String sort) {
+        return switch (sort == null ? "" : sort) {
+            case "new", "priceAsc", "priceDesc" -> sort;
+            default -> "";
+        };
+    }
+}
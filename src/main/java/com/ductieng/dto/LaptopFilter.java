@@ -0,0 +1,62 @@
+package com.ductieng.dto;
+
+/**
+ * Bộ lọc danh sách laptop (trang chủ / /laptops) đã chuẩn hoá từ query string.
+ * Các field null = không lọc theo tiêu chí đó.
+ */
+public record LaptopFilter(
+        String keyword, // ô tìm kiếm: full-text trên name/brand/configuration
+        Long categoryId,
+        Double minPrice,
+        Double maxPrice,
+        Integer ramGb,
+        String cpu,
+        String brand) {
+
+    /**
+     * Parse các tham số giống hệt logic lọc cũ trong HomeController:
+     * - priceRange: "min-max" = [min, max] (gồm cả 2 đầu như trước), thiếu min = 0, thiếu max = không giới hạn
+     * - ram: "8" hoặc "8 GB"
+     */
+    public static LaptopFilter of(String keyword, Long categoryId, String priceRange,
+            String ram, String cpu, String brandFilter) {
+        Double min = null;
+        Double max = null;
+        if (priceRange != null && !priceRange.isBlank()) {
+            String[] p = priceRange.split("-");
+            min = p[0].isEmpty() ? 0 : Double.parseDouble(p[0]);
+            max = (p.length < 2 || p[1].isEmpty()) ? null : Double.parseDouble(p[1]);
+        }
+        Integer ramGb = (ram != null && !ram.isBlank())
+                ? Integer.parseInt(ram.replace(" GB", "").trim())
+                : null;
+        return new LaptopFilter(
+                blankToNull(keyword),
+                categoryId,
+                min,
+                max,
+                ramGb,
+                blankToNull(cpu),
+                blankToNull(brandFilter));
+    }
+
+    /**
+     * categoryId ưu tiên; nếu không có thì map key tab cũ (office | study | gaming) sang id
+     * trong bảng categories. "all" -> null.
+     */
+    public static Long resolveCategoryId(String categoryKey, Long categoryId) {
+        if (categoryId != null)
+            return categoryId;
+        String key = (categoryKey == null ? "all" : categoryKey.toLowerCase()).trim();
+        return switch (key) {
+            case "office" -> 1L;
+            case "study" -> 2L;
+            case "gaming" -> 3L;
+            default -> null;
+        };
+    }
+
+    private static String blankToNull(String s) {
+        return (s == null || s.isBlank()) ? null : s.trim();
+    }
+}
@@ -0,0 +1,33 @@
+package com.ductieng.dto;
+
+/**
+ * Phần lõi trang chi tiết SP lấy trong 1 câu: cột nhẹ + khoá ảnh 5 slot (ImageStore,
+ * null = slot trống) + tổng điểm / số review (cột tổng hợp trên laptops).
+ */
+public record ProductCore(
+        Long id,
+        String name,
+        String brand,
+        Double price,
+        String configuration,
+        String imageUrl,
+        Integer quantity,
+        String image1Key,
+        String image2Key,
+        String image3Key,
+        String image4Key,
+        String image5Key,
+        Integer ratingSum,
+        Integer ratingCount) {
+
+    public String imageKey(int index) {
+        return switch (index) {
+            case 1 -> image1Key;
+            case 2 -> image2Key;
+            case 3 -> image3Key;
+            case 4 -> image4Key;
+            case 5 -> image5Key;
+            default -> null;
+        };
+    }
+}
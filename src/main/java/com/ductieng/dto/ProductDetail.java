@@ -0,0 +1,26 @@
+package com.ductieng.dto;
+
+import java.util.List;
+
+/**
+ * Read model trang chi tiết SP: phần giống nhau với mọi người xem, cache được theo SP.
+ * Phần riêng từng người (được đánh giá hay không) tính tách riêng.
+ */
+public record ProductDetail(
+        Long id,
+        String name,
+        String brand,
+        Double price,
+        String configuration,
+        String imageUrl,
+        Integer quantity,
+        List<Image> images,
+        double avgRating,
+        long reviewCount,
+        List<ReviewView> reviews,
+        String nextReviewCursor) {
+
+    /** 1 slot ảnh carousel (giữ tên thuộc tính "url" như LaptopImage cho template). */
+    public record Image(String url) {
+    }
+}
@@ -0,0 +1,5 @@
+package com.ductieng.dto;
+
+/** 1 dòng bảng sản phẩm ở dashboard admin (không có cột ảnh). */
+public record ProductRow(Long id, String name, String brand, Double price, Integer quantity) {
+}
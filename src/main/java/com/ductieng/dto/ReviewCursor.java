@@ -0,0 +1,40 @@
+package com.ductieng.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Con trỏ keyset cho danh sách review của 1 SP (mới nhất trước): createdAt + id của
+ * review cuối trang trước. Ra ngoài dưới dạng chuỗi base64url mờ như LaptopCursor.
+ * Phần đầu "new" để dành chỗ cho các kiểu sắp xếp khác sau này.
+ */
+public record ReviewCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SORT = "new";
+
+    public static ReviewCursor after(ReviewView last) {
+        return new ReviewCursor(last.createdAt(), last.id());
+    }
+
+    public String encode() {
+        String raw = SORT + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException nếu chuỗi hỏng
+     */
+    public static ReviewCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] p = raw.split("\\|", -1);
+            if (p.length != 3 || !p[0].equals(SORT))
+                throw new IllegalArgumentException("Cursor không khớp kiểu sắp xếp");
+            return new ReviewCursor(LocalDateTime.parse(p[1]), Long.valueOf(p[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ductieng.dto;
+
+import java.time.LocalDateTime;
+
+import com.ductieng.model.Review;
+
+/** 1 review hiển thị trên trang chi tiết (không kéo entity User / Laptop). */
+public record ReviewView(Long id, String username, int rating, String comment, LocalDateTime createdAt) {
+
+    public static ReviewView of(Review r) {
+        return new ReviewView(r.getId(), r.getUser().getUsername(), r.getRating(), r.getComment(), r.getCreatedAt());
+    }
+}
@@ -0,0 +1,5 @@
+package com.ductieng.dto;
+
+/** Các trường text của 1 laptop dùng cho tìm kiếm (không BLOB). */
+public record SearchDoc(Long id, String name, String brand, String configuration) {
+}
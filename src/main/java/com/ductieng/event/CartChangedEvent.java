@@ -0,0 +1,9 @@
+package com.ductieng.event;
+
+/**
+ * Phát ra mỗi khi giỏ của 1 chủ giỏ bị ghi (thêm / bớt / xoá / gộp giỏ khách).
+ *
+ * @param ownerKey "u:&lt;username&gt;" hoặc "g:&lt;token&gt;" như CartLine.ownerKey
+ */
+public record CartChangedEvent(String ownerKey) {
+}
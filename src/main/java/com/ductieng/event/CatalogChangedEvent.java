@@ -0,0 +1,8 @@
+package com.ductieng.event;
+
+/**
+ * Phát ra khi 1 laptop được thêm / sửa / xoá / đổi tồn kho.
+ * Các cache/index đọc của catalog lắng nghe (sau commit) để tự cập nhật.
+ */
+public record CatalogChangedEvent(Long laptopId) {
+}
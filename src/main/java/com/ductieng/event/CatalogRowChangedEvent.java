@@ -0,0 +1,10 @@
+package com.ductieng.event;
+
+import com.ductieng.dto.CatalogRow;
+
+/**
+ * CatalogIndex phát ra sau khi đã vá snapshot cho 1 laptop: trạng thái trước và sau
+ * (null = chưa có / đã bị xoá). Dùng để huỷ cache đúng những trang bị ảnh hưởng.
+ */
+public record CatalogRowChangedEvent(Long laptopId, CatalogRow before, CatalogRow after) {
+}
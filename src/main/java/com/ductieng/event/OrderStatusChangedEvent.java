@@ -0,0 +1,7 @@
+package com.ductieng.event;
+
+import com.ductieng.model.OrderStatus;
+
+/** Phát ra khi admin đổi trạng thái 1 đơn (ví dụ sang DELIVERED -> khách được phép đánh giá). */
+public record OrderStatusChangedEvent(Long orderId, OrderStatus status) {
+}
@@ -0,0 +1,13 @@
+package com.ductieng.event;
+
+/**
+ * Phát ra khi dữ liệu tham chiếu dùng chung cho mọi trang đổi (brand, danh mục, thông báo/banner...).
+ *
+ * @param kind loại dữ liệu, xem các hằng bên dưới
+ */
+public record ReferenceDataChangedEvent(String kind) {
+
+    public static final String BRANDS = "brands";
+    public static final String CATEGORIES = "categories";
+    public static final String ANNOUNCEMENT = "announcement";
+}
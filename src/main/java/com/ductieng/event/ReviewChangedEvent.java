@@ -0,0 +1,8 @@
+package com.ductieng.event;
+
+/**
+ * Phát ra khi 1 review của laptop được thêm / xoá (điểm trung bình, số review đổi).
+ * Cache nào có hiển thị rating của laptop đó lắng nghe (sau commit) để tự làm mới.
+ */
+public record ReviewChangedEvent(Long laptopId) {
+}
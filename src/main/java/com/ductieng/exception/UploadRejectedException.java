@@ -0,0 +1,8 @@
+package com.ductieng.exception;
+
+/** File upload bị từ chối (quá cỡ / sai định dạng) – thông điệp hiển thị được cho người dùng. */
+public class UploadRejectedException extends IllegalArgumentException {
+    public UploadRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+package com.ductieng.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 1 tín hiệu "dữ liệu X vừa đổi" để các node khác làm mới cache trong RAM (xem ClusterSignals).
+ * Ghi trong cùng transaction với thay đổi -> transaction rollback thì không có tín hiệu.
+ * Chỉ giữ ngắn hạn, job dọn xoá dòng cũ.
+ */
+@Entity
+@Table(name = "cache_signals", indexes = {
+        @Index(name = "idx_cache_signals_created_at", columnList = "created_at")
+})
+public class CacheSignal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Node đã ghi tín hiệu (node đó tự cập nhật rồi, không phát lại)
+    @Column(name = "node_id", nullable = false, length = 36)
+    private String nodeId;
+
+    @Column(nullable = false, length = 20)
+    private String kind;
+
+    @Column(name = "ref_id")
+    private Long refId;
+
+    @Column(name = "ref_key", length = 100)
+    private String refKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public CacheSignal() {
+    }
+
+    public CacheSignal(String nodeId, String kind, Long refId, String refKey) {
+        this.nodeId = nodeId;
+        this.kind = kind;
+        this.refId = refId;
+        this.refKey = refKey;
+    }
+
+    @PrePersist
+    private void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // ===== GET =====
+    public Long getId() { return id; }
+
+    public String getNodeId() { return nodeId; }
+
+    public String getKind() { return kind; }
+
+    public Long getRefId() { return refId; }
+
+    public String getRefKey() { return refKey; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,62 @@
+package com.ductieng.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 1 dòng giỏ hàng lưu DB: chỉ (chủ giỏ, laptopId, số lượng).
+ * Giá / tồn kho không lưu ở đây mà nạp lại từ bảng laptops mỗi lần xem giỏ / thanh toán.
+ * ownerKey = "u:&lt;username&gt;" cho user đã đăng nhập, "g:&lt;token&gt;" cho khách.
+ */
+@Entity
+@Table(name = "cart_lines", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_cart_lines_owner_laptop", columnNames = { "owner_key", "laptop_id" })
+}, indexes = {
+        @Index(name = "idx_cart_lines_updated_at", columnList = "updated_at")
+})
+public class CartLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_key", nullable = false, length = 100)
+    private String ownerKey;
+
+    @Column(name = "laptop_id", nullable = false)
+    private Long laptopId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public CartLine() {
+    }
+
+    public CartLine(String ownerKey, Long laptopId, int quantity) {
+        this.ownerKey = ownerKey;
+        this.laptopId = laptopId;
+        this.quantity = quantity;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // ===== GET/SET =====
+    public Long getId() { return id; }
+
+    public String getOwnerKey() { return ownerKey; }
+    public void setOwnerKey(String ownerKey) { this.ownerKey = ownerKey; }
+
+    public Long getLaptopId() { return laptopId; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -3,12 +3,15 @@ package com.ductieng.model;
 import jakarta.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+
+import com.ductieng.dto.ImageKeys;
+import com.ductieng.util.LaptopSpecs;
 
 @Entity
-@Table(name = "laptops")
+@Table(name = "laptops", indexes = {
+        @Index(name = "idx_laptops_ram_gb", columnList = "ram_gb"),
+        @Index(name = "idx_laptops_cpu_family", columnList = "cpu_family")
+})
 public class Laptop {
 
     @Id
@@ -31,31 +34,52 @@ public class Laptop {
     @Column(name = "image_url", length = 255)
     private String imageUrl;
 
-    // 5 slot ảnh chi tiết – NHỊ PHÂN (ép LONGBLOB để không bị tinyblob)
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "image1", columnDefinition = "LONGBLOB")
-    private byte[] image1;
+    // 5 slot ảnh chi tiết: khoá nội dung (SHA-256 hex) của file gốc trong ImageStore.
+    // Chỉ đọc từ phía Laptop – Product (form admin) là nơi ghi; tránh entity cũ bị merge đè ảnh mới
+    @Column(name = "image1_key", length = 64, insertable = false, updatable = false)
+    private String image1Key;
+
+    @Column(name = "image2_key", length = 64, insertable = false, updatable = false)
+    private String image2Key;
+
+    @Column(name = "image3_key", length = 64, insertable = false, updatable = false)
+    private String image3Key;
+
+    @Column(name = "image4_key", length = 64, insertable = false, updatable = false)
+    private String image4Key;
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "image2", columnDefinition = "LONGBLOB")
-    private byte[] image2;
+    @Column(name = "image5_key", length = 64, insertable = false, updatable = false)
+    private String image5Key;
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "image3", columnDefinition = "LONGBLOB")
-    private byte[] image3;
+    // ===== Thông số bóc từ configuration lúc ghi (xem LaptopSpecs) =====
+    @Column(name = "ram_gb")
+    private Integer ramGb;
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "image4", columnDefinition = "LONGBLOB")
-    private byte[] image4;
+    @Column(name = "cpu_family", length = 20)
+    private String cpuFamily;
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "image5", columnDefinition = "LONGBLOB")
-    private byte[] image5;
+    @Column(name = "cpu_model", length = 80)
+    private String cpuModel;
+
+    // ===== Tổng hợp rating (cộng dồn khi thêm/xoá review, xem ReviewServiceImpl) =====
+    // Chỉ đọc từ phía entity: chỉ các câu UPDATE nguyên tử mới ghi, tránh save() ghi đè số cũ
+    @Column(name = "rating_sum", insertable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer ratingSum;
+
+    @Column(name = "rating_count", insertable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer ratingCount;
+
+    // Histogram số review theo số sao 1..5
+    @Column(name = "rating_1", insertable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer rating1;
+    @Column(name = "rating_2", insertable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer rating2;
+    @Column(name = "rating_3", insertable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer rating3;
+    @Column(name = "rating_4", insertable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer rating4;
+    @Column(name = "rating_5", insertable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer rating5;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = true)
     @JoinColumn(name = "category_id", foreignKey = @ForeignKey(name = "fk_laptops_category"))
@@ -128,6 +152,11 @@ public class Laptop {
      * Nếu trường chứa URL đầy đủ (bắt đầu bằng '/' hoặc 'http'), giữ nguyên.
      */
     public String getImageUrl() {
+        return publicImageUrl(imageUrl);
+    }
+
+    /** Quy tắc chuẩn hoá ở trên, dùng chung cho các projection không nạp entity. */
+    public static String publicImageUrl(String imageUrl) {
         if (imageUrl == null || imageUrl.isBlank())
             return imageUrl;
         String v = imageUrl.trim();
@@ -157,52 +186,73 @@ public class Laptop {
         this.imageUrl = v;
     }
 
-    public byte[] getImage1() {
-        return image1;
-    }
-
-    public void setImage1(byte[] image1) {
-        this.image1 = image1;
+    /** Khoá ảnh slot 1..5 trong ImageStore, null nếu slot trống. */
+    @Transient
+    public String getImageKey(int index) {
+        return switch (index) {
+            case 1 -> image1Key;
+            case 2 -> image2Key;
+            case 3 -> image3Key;
+            case 4 -> image4Key;
+            case 5 -> image5Key;
+            default -> null;
+        };
     }
 
-    public byte[] getImage2() {
-        return image2;
+    public Category getCategory() {
+        return category;
     }
 
-    public void setImage2(byte[] image2) {
-        this.image2 = image2;
+    public void setCategory(Category category) {
+        this.category = category;
     }
 
-    public byte[] getImage3() {
-        return image3;
+    public Integer getRamGb() {
+        return ramGb;
     }
 
-    public void setImage3(byte[] image3) {
-        this.image3 = image3;
+    public String getCpuFamily() {
+        return cpuFamily;
     }
 
-    public byte[] getImage4() {
-        return image4;
+    public String getCpuModel() {
+        return cpuModel;
     }
 
-    public void setImage4(byte[] image4) {
-        this.image4 = image4;
+    public Integer getRatingSum() {
+        return ratingSum;
     }
 
-    public byte[] getImage5() {
-        return image5;
+    public Integer getRatingCount() {
+        return ratingCount;
     }
 
-    public void setImage5(byte[] image5) {
-        this.image5 = image5;
+    /** Số review theo số sao (1..5), 0 nếu ngoài khoảng. */
+    public int getRatingHistogram(int stars) {
+        Integer n = switch (stars) {
+            case 1 -> rating1;
+            case 2 -> rating2;
+            case 3 -> rating3;
+            case 4 -> rating4;
+            case 5 -> rating5;
+            default -> null;
+        };
+        return n == null ? 0 : n;
     }
 
-    public Category getCategory() {
-        return category;
+    @Transient
+    public double getRatingAvg() {
+        return (ratingCount == null || ratingCount == 0 || ratingSum == null) ? 0.0 : (double) ratingSum / ratingCount;
     }
 
-    public void setCategory(Category category) {
-        this.category = category;
+    /** Bóc lại RAM/CPU từ configuration mỗi khi insert/update. */
+    @PrePersist
+    @PreUpdate
+    public void extractSpecs() {
+        LaptopSpecs.Specs specs = LaptopSpecs.extract(configuration);
+        this.ramGb = specs.ramGb();
+        this.cpuModel = specs.cpuModel();
+        this.cpuFamily = specs.cpuFamily();
     }
 
     // ===== Helpers cho UI/filter =====
@@ -217,22 +267,14 @@ public class Laptop {
 
     @Transient
     public boolean hasImage(int index) {
-        byte[] d = switch (index) {
-            case 1 -> image1;
-            case 2 -> image2;
-            case 3 -> image3;
-            case 4 -> image4;
-            case 5 -> image5;
-            default -> null;
-        };
-        return d != null && d.length > 0;
+        return getImageKey(index) != null;
     }
 
     /** Trả URL ảnh theo index nếu có, fallback imageUrl cho index 1 */
     @Transient
     public String getImageByIndex(int index) {
         if (getId() != null && hasImage(index)) {
-            return "/product/" + getId() + "/image/" + index;
+            return ImageKeys.url(getId(), index, getImageKey(index));
         }
         if (index == 1 && imageUrl != null && !imageUrl.isBlank())
             return imageUrl;
@@ -240,62 +282,19 @@ public class Laptop {
     }
 
     /**
-     * Stub RAM cho phần lọc; cố gắng parse từ configuration, không được thì trả 0.
+     * RAM cho phần lọc; ưu tiên cột ram_gb đã bóc sẵn, chưa có thì parse từ configuration.
      */
     @Transient
     public int getRam() {
-        try {
-            if (configuration != null) {
-                String s = configuration.toUpperCase(Locale.ROOT);
-                int i = s.indexOf("GB");
-                if (i > 0) {
-                    String digits = s.substring(Math.max(0, i - 3), i).replaceAll("[^0-9]", "");
-                    if (!digits.isBlank())
-                        return Integer.parseInt(digits);
-                }
-            }
-        } catch (Exception ignore) {
-        }
-        return 0;
+        return (ramGb != null) ? ramGb : LaptopSpecs.parseRam(configuration);
     }
 
     /**
-     * Stub CPU cho phần lọc; parse chuỗi nổi bật từ configuration
-     * (Intel/AMD/Apple...).
+     * CPU cho phần lọc; ưu tiên cột cpu_model đã bóc sẵn, chưa có thì parse từ configuration.
+     * (ram_gb != null nghĩa là dòng đã qua bước bóc thông số, kể cả khi cpu_model = null.)
      */
     @Transient
     public String getCpu() {
-        if (configuration == null || configuration.isBlank())
-            return null;
-        String conf = configuration;
-
-        try {
-            Pattern[] patterns = new Pattern[] {
-                    Pattern.compile("(intel)\\s*core\\s*i[3-9](?:[-\\s]*\\w+)*", Pattern.CASE_INSENSITIVE),
-                    Pattern.compile("(amd)\\s*ryzen\\s*\\d{1,2}(?:[-\\s]*\\w+)*", Pattern.CASE_INSENSITIVE),
-                    Pattern.compile("(apple)?\\s*m[1-9](?:\\s*(pro|max|ultra))?", Pattern.CASE_INSENSITIVE)
-            };
-
-            for (Pattern p : patterns) {
-                Matcher m = p.matcher(conf);
-                if (m.find())
-                    return m.group().trim().replaceAll("\\s+", " ");
-            }
-
-            int idx = conf.toLowerCase(Locale.ROOT).indexOf("cpu");
-            if (idx >= 0) {
-                String tail = conf.substring(idx + 3).replaceFirst("^[:\\s-]*", "");
-                int cut = tail.indexOf(',');
-                if (cut < 0)
-                    cut = tail.indexOf('\n');
-                if (cut >= 0)
-                    tail = tail.substring(0, cut);
-                tail = tail.trim();
-                if (!tail.isBlank())
-                    return tail;
-            }
-        } catch (Exception ignore) {
-        }
-        return null;
+        return (ramGb != null) ? cpuModel : LaptopSpecs.parseCpu(configuration);
     }
 }
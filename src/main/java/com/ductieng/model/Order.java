@@ -9,7 +9,9 @@ import java.util.List;
 import com.ductieng.model.PaymentMethod;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_status", columnList = "customer_id, status")
+})
 public class Order {
 
     @Id
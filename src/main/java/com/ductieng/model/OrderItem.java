@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_order_laptop", columnList = "order_id, laptop_id")
+})
 public class OrderItem {
 
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -7,6 +7,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.ductieng.util.LaptopSpecs;
+
 @Entity
 @Table(name = "laptops")
 public class Product {
@@ -34,12 +36,12 @@ public class Product {
     @JoinColumn(name = "category_id", nullable = false) // cột FK trong bảng laptops
     private Category category; // <-- thêm field này
 
-    // ===== 5 ảnh =====
-    @Lob @Column(columnDefinition = "LONGBLOB") private byte[] image1;
-    @Lob @Column(columnDefinition = "LONGBLOB") private byte[] image2;
-    @Lob @Column(columnDefinition = "LONGBLOB") private byte[] image3;
-    @Lob @Column(columnDefinition = "LONGBLOB") private byte[] image4;
-    @Lob @Column(columnDefinition = "LONGBLOB") private byte[] image5;
+    // ===== 5 ảnh: khoá nội dung (SHA-256 hex) của file gốc trong ImageStore =====
+    @Column(name = "image1_key", length = 64) private String image1Key;
+    @Column(name = "image2_key", length = 64) private String image2Key;
+    @Column(name = "image3_key", length = 64) private String image3Key;
+    @Column(name = "image4_key", length = 64) private String image4Key;
+    @Column(name = "image5_key", length = 64) private String image5Key;
 
     // Ảnh đại diện (1..5)
     @Column(name = "featured_index")
@@ -50,6 +52,16 @@ public class Product {
     @Column(columnDefinition = "TEXT")
     private String configuration;
 
+    // Thông số bóc từ configuration (cùng cột với Laptop, xem LaptopSpecs)
+    @Column(name = "ram_gb")
+    private Integer ramGb;
+
+    @Column(name = "cpu_family", length = 20)
+    private String cpuFamily;
+
+    @Column(name = "cpu_model", length = 80)
+    private String cpuModel;
+
     @Transient
     private MultipartFile[] imageFiles;
 
@@ -74,16 +86,40 @@ public class Product {
     public Category getCategory() { return category; }
     public void setCategory(Category category) { this.category = category; }
 
-    public byte[] getImage1() { return image1; }
-    public void setImage1(byte[] image1) { this.image1 = image1; }
-    public byte[] getImage2() { return image2; }
-    public void setImage2(byte[] image2) { this.image2 = image2; }
-    public byte[] getImage3() { return image3; }
-    public void setImage3(byte[] image3) { this.image3 = image3; }
-    public byte[] getImage4() { return image4; }
-    public void setImage4(byte[] image4) { this.image4 = image4; }
-    public byte[] getImage5() { return image5; }
-    public void setImage5(byte[] image5) { this.image5 = image5; }
+    public String getImage1Key() { return image1Key; }
+    public void setImage1Key(String image1Key) { this.image1Key = image1Key; }
+    public String getImage2Key() { return image2Key; }
+    public void setImage2Key(String image2Key) { this.image2Key = image2Key; }
+    public String getImage3Key() { return image3Key; }
+    public void setImage3Key(String image3Key) { this.image3Key = image3Key; }
+    public String getImage4Key() { return image4Key; }
+    public void setImage4Key(String image4Key) { this.image4Key = image4Key; }
+    public String getImage5Key() { return image5Key; }
+    public void setImage5Key(String image5Key) { this.image5Key = image5Key; }
+
+    /** Khoá ảnh slot 1..5, null nếu slot trống. */
+    @Transient
+    public String getImageKey(int index) {
+        return switch (index) {
+            case 1 -> image1Key;
+            case 2 -> image2Key;
+            case 3 -> image3Key;
+            case 4 -> image4Key;
+            case 5 -> image5Key;
+            default -> null;
+        };
+    }
+
+    public void setImageKey(int index, String key) {
+        switch (index) {
+            case 1 -> image1Key = key;
+            case 2 -> image2Key = key;
+            case 3 -> image3Key = key;
+            case 4 -> image4Key = key;
+            case 5 -> image5Key = key;
+            default -> throw new IllegalArgumentException("Slot ảnh phải từ 1..5");
+        }
+    }
 
     public Integer getFeaturedIndex() { return featuredIndex; }
     public void setFeaturedIndex(Integer featuredIndex) { this.featuredIndex = featuredIndex; }
@@ -91,6 +127,20 @@ public class Product {
     public String getConfiguration() { return configuration; }
     public void setConfiguration(String configuration) { this.configuration = configuration; }
 
+    public Integer getRamGb() { return ramGb; }
+    public String getCpuFamily() { return cpuFamily; }
+    public String getCpuModel() { return cpuModel; }
+
+    // Admin lưu qua Product -> bóc thông số luôn để cột index không bị lệch
+    @PrePersist
+    @PreUpdate
+    public void extractSpecs() {
+        LaptopSpecs.Specs specs = LaptopSpecs.extract(configuration);
+        this.ramGb = specs.ramGb();
+        this.cpuModel = specs.cpuModel();
+        this.cpuFamily = specs.cpuFamily();
+    }
+
     public MultipartFile[] getImageFiles() { return imageFiles; }
     public void setImageFiles(MultipartFile[] imageFiles) { this.imageFiles = imageFiles; }
 }
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        // Danh sách review theo SP, mới nhất trước (keyset: created_at, id)
+        @Index(name = "idx_reviews_laptop_created", columnList = "laptop_id, created_at, id")
+})
 public class Review {
 
     @Id
@@ -0,0 +1,27 @@
+package com.ductieng.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ductieng.model.CacheSignal;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CacheSignalRepository extends JpaRepository<CacheSignal, Long> {
+
+    @Query("select s from CacheSignal s where s.id > :after order by s.id")
+    List<CacheSignal> findAfter(@Param("after") long after, Pageable page);
+
+    @Query("select coalesce(max(s.id), 0) from CacheSignal s")
+    long maxId();
+
+    @Modifying
+    @Transactional
+    @Query("delete from CacheSignal s where s.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
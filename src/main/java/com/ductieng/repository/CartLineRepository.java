@@ -0,0 +1,78 @@
+package com.ductieng.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.ductieng.model.CartLine;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface CartLineRepository extends JpaRepository<CartLine, Long> {
+
+    List<CartLine> findByOwnerKeyOrderByIdAsc(String ownerKey);
+
+    Optional<CartLine> findByOwnerKeyAndLaptopId(String ownerKey, Long laptopId);
+
+    /**
+     * +qty nguyên tử nếu không vượt tồn kho {@code max}. 0 dòng = chưa có dòng hoặc vượt tồn kho.
+     * (Đọc-sửa-ghi qua entity làm mất cập nhật khi 2 request cùng sửa 1 dòng.)
+     */
+    @Modifying
+    @Query("""
+        update CartLine c set c.quantity = c.quantity + :qty, c.updatedAt = :now
+        where c.ownerKey = :owner and c.laptopId = :laptopId and c.quantity + :qty <= :max
+        """)
+    int incrementWithin(@Param("owner") String ownerKey, @Param("laptopId") Long laptopId,
+            @Param("qty") int qty, @Param("max") int max, @Param("now") LocalDateTime now);
+
+    /** -1 nguyên tử khi còn > 1 món; 0 dòng = không có dòng hoặc đang là 1 (xoá bằng deleteSingle). */
+    @Modifying
+    @Query("""
+        update CartLine c set c.quantity = c.quantity - 1, c.updatedAt = :now
+        where c.ownerKey = :owner and c.laptopId = :laptopId and c.quantity > 1
+        """)
+    int decrementAboveOne(@Param("owner") String ownerKey, @Param("laptopId") Long laptopId,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from CartLine c where c.ownerKey = :owner and c.laptopId = :laptopId and c.quantity <= 1")
+    int deleteSingle(@Param("owner") String ownerKey, @Param("laptopId") Long laptopId);
+
+    /**
+     * Thêm dòng mới; nếu request song song vừa tạo dòng đó (trùng uk_cart_lines_owner_laptop)
+     * thì cộng dồn, kẹp ở {@code max} – không bao giờ lỗi trùng khoá.
+     */
+    @Modifying
+    @Query(value = """
+        insert into cart_lines (owner_key, laptop_id, quantity, updated_at)
+        values (:owner, :laptopId, :qty, :now)
+        on duplicate key update quantity = least(quantity + :qty, :max), updated_at = :now
+        """, nativeQuery = true)
+    int upsert(@Param("owner") String ownerKey, @Param("laptopId") Long laptopId,
+            @Param("qty") int qty, @Param("max") int max, @Param("now") LocalDateTime now);
+
+    // Tổng số món (badge giỏ hàng)
+    @Query("select coalesce(sum(c.quantity), 0) from CartLine c where c.ownerKey = :owner")
+    int sumQuantity(@Param("owner") String ownerKey);
+
+    @Modifying
+    @Query("delete from CartLine c where c.ownerKey = :owner and c.laptopId = :laptopId")
+    int deleteLine(@Param("owner") String ownerKey, @Param("laptopId") Long laptopId);
+
+    @Modifying
+    @Query("delete from CartLine c where c.ownerKey = :owner")
+    int deleteByOwner(@Param("owner") String ownerKey);
+
+    @Modifying
+    @Query("delete from CartLine c where c.laptopId in :laptopIds and c.ownerKey = :owner")
+    int deleteLines(@Param("owner") String ownerKey, @Param("laptopIds") List<Long> laptopIds);
+
+    // Dọn giỏ khách bỏ dở lâu ngày
+    @Modifying
+    @Query("delete from CartLine c where c.ownerKey like 'g:%' and c.updatedAt < :before")
+    int deleteGuestLinesBefore(@Param("before") LocalDateTime before);
+}
@@ -3,13 +3,24 @@ package com.ductieng.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.ductieng.dto.CatalogRow;
+import com.ductieng.dto.ImageKeys;
+import com.ductieng.dto.LaptopCard;
+import com.ductieng.dto.ProductCore;
+import com.ductieng.dto.SearchDoc;
 import com.ductieng.model.Laptop;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface LaptopRepository extends JpaRepository<Laptop, Long> {
+public interface LaptopRepository extends JpaRepository<Laptop, Long>, JpaSpecificationExecutor<Laptop>,
+        LaptopRepositoryCustom {
 
     // Tìm kiếm theo brand (phân trang)
     Page<Laptop> findByBrandContainingIgnoreCase(String brand, Pageable pageable);
@@ -36,4 +47,118 @@ public interface LaptopRepository extends JpaRepository<Laptop, Long> {
 
     // Đếm số sản phẩm có brand cụ thể (case-insensitive)
     long countByBrandIgnoreCase(String brand);
+
+    // ===== Backfill thông số RAM/CPU cho các dòng cũ (chỉ lấy id + configuration, không đụng BLOB) =====
+    @Query("select l.id, l.configuration from Laptop l where l.ramGb is null order by l.id")
+    List<Object[]> findConfigsMissingSpecs(Pageable pageable);
+
+    @Modifying
+    @Query("update Laptop l set l.ramGb = :ram, l.cpuFamily = :family, l.cpuModel = :model where l.id = :id")
+    int updateSpecs(@Param("id") Long id,
+            @Param("ram") Integer ram,
+            @Param("family") String family,
+            @Param("model") String model);
+
+    // ===== Dòng tối giản cho CatalogIndex (in-memory) =====
+    @Query("""
+        select new com.ductieng.dto.CatalogRow(l.id, l.brand, l.price, l.quantity,
+                l.ramGb, l.cpuFamily, l.cpuModel, c.id)
+        from Laptop l left join l.category c
+        """)
+    List<CatalogRow> findCatalogRows();
+
+    @Query("""
+        select new com.ductieng.dto.CatalogRow(l.id, l.brand, l.price, l.quantity,
+                l.ramGb, l.cpuFamily, l.cpuModel, c.id)
+        from Laptop l left join l.category c
+        where l.id = :id
+        """)
+    List<CatalogRow> findCatalogRow(@Param("id") Long id);
+
+    // ===== Text cho ProductSearchIndex =====
+    @Query("select new com.ductieng.dto.SearchDoc(l.id, l.name, l.brand, l.configuration) from Laptop l")
+    List<SearchDoc> findSearchDocs();
+
+    @Query("select new com.ductieng.dto.SearchDoc(l.id, l.name, l.brand, l.configuration) from Laptop l where l.id = :id")
+    List<SearchDoc> findSearchDoc(@Param("id") Long id);
+
+    // ===== Nguồn cho gợi ý tìm kiếm (SuggestIndex): id, name, brand, cpuModel =====
+    @Query("select l.id, l.name, l.brand, l.cpuModel from Laptop l")
+    List<Object[]> findSuggestSources();
+
+    @Query("select l.id, l.name, l.brand, l.cpuModel from Laptop l where l.id = :id")
+    List<Object[]> findSuggestSource(@Param("id") Long id);
+
+    // ===== Thẻ sản phẩm cho trang danh sách (chỉ cột nhẹ, không khoá ảnh / configuration) =====
+    @Query("""
+        select new com.ductieng.dto.LaptopCard(l.id, l.name, l.brand, l.price, l.imageUrl, l.quantity,
+                l.ratingSum, l.ratingCount)
+        from Laptop l where l.id in :ids
+        """)
+    List<LaptopCard> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ===== Lõi trang chi tiết: cột nhẹ + khoá ảnh + rating (cột tổng hợp) trong 1 câu =====
+    @Query("""
+        select new com.ductieng.dto.ProductCore(l.id, l.name, l.brand, l.price, l.configuration,
+                l.imageUrl, l.quantity,
+                l.image1Key, l.image2Key, l.image3Key, l.image4Key, l.image5Key,
+                l.ratingSum, l.ratingCount)
+        from Laptop l where l.id = :id
+        """)
+    Optional<ProductCore> findProductCore(@Param("id") Long id);
+
+    // Khoá ảnh 5 slot (ImageStore) – không nạp cả entity chỉ để phục vụ 1 ảnh
+    @Query("""
+        select new com.ductieng.dto.ImageKeys(l.image1Key, l.image2Key, l.image3Key, l.image4Key, l.image5Key)
+        from Laptop l where l.id = :id
+        """)
+    Optional<ImageKeys> findImageKeys(@Param("id") Long id);
+
+    // ===== Tổng hợp rating cộng dồn (delta = +1 khi thêm, -1 khi xoá review) =====
+    @Modifying
+    @Query(value = """
+        update laptops set
+            rating_sum = rating_sum + :delta * :stars,
+            rating_count = rating_count + :delta,
+            rating_1 = rating_1 + case when :stars = 1 then :delta else 0 end,
+            rating_2 = rating_2 + case when :stars = 2 then :delta else 0 end,
+            rating_3 = rating_3 + case when :stars = 3 then :delta else 0 end,
+            rating_4 = rating_4 + case when :stars = 4 then :delta else 0 end,
+            rating_5 = rating_5 + case when :stars = 5 then :delta else 0 end
+        where id = :id
+        """, nativeQuery = true)
+    int addRating(@Param("id") Long id, @Param("stars") int stars, @Param("delta") int delta);
+
+    // Laptop có số tổng hợp lệch với bảng reviews (cho job đối soát)
+    @Query(value = """
+        select l.id from laptops l
+        left join (
+            select laptop_id, count(*) c, sum(rating) s,
+                   sum(rating = 1) r1, sum(rating = 2) r2, sum(rating = 3) r3, sum(rating = 4) r4, sum(rating = 5) r5
+            from reviews group by laptop_id
+        ) a on a.laptop_id = l.id
+        where l.rating_count <> coalesce(a.c, 0) or l.rating_sum <> coalesce(a.s, 0)
+           or l.rating_1 <> coalesce(a.r1, 0) or l.rating_2 <> coalesce(a.r2, 0) or l.rating_3 <> coalesce(a.r3, 0)
+           or l.rating_4 <> coalesce(a.r4, 0) or l.rating_5 <> coalesce(a.r5, 0)
+        """, nativeQuery = true)
+    List<Long> findRatingDrift();
+
+    // Tính lại toàn bộ số tổng hợp của 1 laptop từ bảng reviews
+    @Modifying
+    @Query(value = """
+        update laptops l set
+            rating_count = (select count(*) from reviews r where r.laptop_id = l.id),
+            rating_sum = (select coalesce(sum(r.rating), 0) from reviews r where r.laptop_id = l.id),
+            rating_1 = (select count(*) from reviews r where r.laptop_id = l.id and r.rating = 1),
+            rating_2 = (select count(*) from reviews r where r.laptop_id = l.id and r.rating = 2),
+            rating_3 = (select count(*) from reviews r where r.laptop_id = l.id and r.rating = 3),
+            rating_4 = (select count(*) from reviews r where r.laptop_id = l.id and r.rating = 4),
+            rating_5 = (select count(*) from reviews r where r.laptop_id = l.id and r.rating = 5)
+        where l.id = :id
+        """, nativeQuery = true)
+    int recomputeRating(@Param("id") Long id);
+
+    // Rating đọc thẳng từ dòng laptop (không GROUP BY trên reviews)
+    @Query("select l.id, l.ratingSum, l.ratingCount from Laptop l where l.id in :ids and l.ratingCount > 0")
+    List<Object[]> findRatingTotals(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,17 @@
+package com.ductieng.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.ductieng.model.Laptop;
+
+import java.util.List;
+
+/**
+ * Truy vấn Specification chỉ trả về id: findAll(spec, ...) luôn SELECT cả entity
+ * (cả configuration TEXT, khoá ảnh...), ở đây chỉ lấy khoá chính rồi nạp projection riêng.
+ */
+public interface LaptopRepositoryCustom {
+
+    List<Long> findIds(Specification<Laptop> spec, Sort sort, long offset, int limit);
+}
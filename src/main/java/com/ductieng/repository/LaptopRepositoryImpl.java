@@ -0,0 +1,40 @@
+package com.ductieng.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.ductieng.model.Laptop;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.List;
+
+/** Phần cài đặt tự viết của LaptopRepository (Spring Data tự ghép theo hậu tố Impl). */
+public class LaptopRepositoryImpl implements LaptopRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Long> findIds(Specification<Laptop> spec, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> q = cb.createQuery(Long.class);
+        Root<Laptop> root = q.from(Laptop.class);
+
+        Predicate where = spec.toPredicate(root, q, cb);
+        if (where != null)
+            q.where(where);
+        q.select(root.get("id")).orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return em.createQuery(q)
+                .setFirstResult((int) Math.min(offset, Integer.MAX_VALUE))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
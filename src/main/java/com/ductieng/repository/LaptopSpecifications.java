@@ -0,0 +1,113 @@
+package com.ductieng.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.ductieng.dto.LaptopCursor;
+import com.ductieng.dto.LaptopFilter;
+import com.ductieng.model.Laptop;
+import com.ductieng.util.LaptopSpecs;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Specification cho trang danh sách laptop: gom toàn bộ bộ lọc thành 1 câu
+ * WHERE để DB tự lọc + phân trang (thay cho việc kéo hết về rồi lọc bằng stream).
+ */
+public final class LaptopSpecifications {
+
+    /** Ký tự escape cho LIKE: từ khoá người dùng chứa % hoặc _ phải khớp đúng nghĩa đen. */
+    private static final char LIKE_ESCAPE = '\\';
+
+    private LaptopSpecifications() {
+    }
+
+    /** %value% với %, _ và chính ký tự escape đã được escape. */
+    private static String containsPattern(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('%');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE)
+                sb.append(LIKE_ESCAPE);
+            sb.append(c);
+        }
+        return sb.append('%').toString();
+    }
+
+    /**
+     * Điều kiện của {@code f}. Từ khoá không so bằng LIKE mà theo {@code keywordIds}: id khớp
+     * ProductSearchIndex (name / brand / configuration, bỏ dấu, tiền tố, sai chính tả nhẹ) –
+     * đúng tập CatalogIndex dùng, nên bật/tắt index không đổi kết quả.
+     * Có từ khoá thì bắt buộc truyền keywordIds (rỗng = không SP nào khớp).
+     */
+    public static Specification<Laptop> matches(LaptopFilter f, Collection<Long> keywordIds) {
+        if (f.keyword() != null && keywordIds == null)
+            throw new IllegalArgumentException("Thiếu id khớp từ khoá");
+        return (root, query, cb) -> {
+            List<Predicate> ps = new ArrayList<>();
+
+            if (f.keyword() != null) {
+                ps.add(keywordIds.isEmpty() ? cb.disjunction() : root.get("id").in(keywordIds));
+            }
+            if (f.categoryId() != null) {
+                ps.add(cb.equal(root.get("category").get("id"), f.categoryId()));
+            }
+            if (f.minPrice() != null) {
+                ps.add(cb.greaterThanOrEqualTo(root.get("price"), f.minPrice()));
+            }
+            if (f.maxPrice() != null) {
+                ps.add(cb.lessThanOrEqualTo(root.get("price"), f.maxPrice()));
+            }
+            if (f.brand() != null) {
+                ps.add(cb.equal(cb.lower(root.get("brand")), f.brand().toLowerCase(Locale.ROOT)));
+            }
+
+            // RAM/CPU: dùng cột đã bóc sẵn lúc ghi (ram_gb, cpu_family có index)
+            if (f.ramGb() != null) {
+                ps.add(cb.equal(root.get("ramGb"), f.ramGb()));
+            }
+            if (f.cpu() != null) {
+                String family = LaptopSpecs.normalizeFamily(f.cpu());
+                ps.add(family != null
+                        ? cb.equal(root.get("cpuFamily"), family)
+                        : cb.like(cb.lower(root.get("cpuModel")),
+                                containsPattern(f.cpu().toLowerCase(Locale.ROOT)), LIKE_ESCAPE));
+            }
+
+            return cb.and(ps.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Điều kiện keyset: chỉ lấy các dòng đứng SAU con trỏ theo (cột sort, id).
+     * Cách xếp NULL giống MySQL (giá NULL đứng đầu khi ASC, cuối khi DESC) để
+     * khớp với ORDER BY mà buildPageable sinh ra.
+     */
+    public static Specification<Laptop> after(LaptopCursor c) {
+        return (root, query, cb) -> {
+            if (c == null)
+                return cb.conjunction();
+            Path<Long> id = root.get("id");
+            Path<Double> price = root.get("price");
+            Predicate sameIdAfter = cb.greaterThan(id, c.id());
+
+            return switch (c.sort()) {
+                case "new" -> cb.lessThan(id, c.id());
+                case "priceAsc" -> c.price() == null
+                        ? cb.or(cb.isNotNull(price), cb.and(cb.isNull(price), sameIdAfter))
+                        : cb.or(cb.greaterThan(price, c.price()),
+                                cb.and(cb.equal(price, c.price()), sameIdAfter));
+                case "priceDesc" -> c.price() == null
+                        ? cb.and(cb.isNull(price), sameIdAfter)
+                        : cb.or(cb.lessThan(price, c.price()), cb.isNull(price),
+                                cb.and(cb.equal(price, c.price()), sameIdAfter));
+                default -> sameIdAfter;
+            };
+        };
+    }
+}
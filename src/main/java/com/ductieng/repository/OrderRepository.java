@@ -26,6 +26,30 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
   // Tìm đơn hàng theo customer và status
   List<Order> findByCustomerAndStatus(User customer, OrderStatus status);
 
+  // User đã có đơn (theo status) chứa laptop này chưa – EXISTS, dừng ở dòng khớp đầu tiên
+  // (dùng idx_orders_customer_status + idx_order_items_order_laptop)
+  @Query("""
+      select case when exists (
+          select 1 from OrderItem oi join oi.order o
+          where o.customer.id = u.id and o.status = :status and oi.product.id = :laptopId
+      ) then true else false end
+      from User u where u.id = :userId
+      """)
+  Optional<Boolean> existsPurchase(@Param("userId") Long userId,
+      @Param("laptopId") Long laptopId,
+      @Param("status") OrderStatus status);
+
+  @Query("""
+      select case when exists (
+          select 1 from OrderItem oi join oi.order o
+          where o.customer.id = u.id and o.status = :status and oi.product.id = :laptopId
+      ) then true else false end
+      from User u where u.username = :username
+      """)
+  Optional<Boolean> existsPurchaseByUsername(@Param("username") String username,
+      @Param("laptopId") Long laptopId,
+      @Param("status") OrderStatus status);
+
   // Xóa tất cả đơn hàng của user
   @Modifying
   @Transactional
@@ -3,11 +3,17 @@ package com.ductieng.repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.ductieng.dto.ProductRow;
 import com.ductieng.model.Product;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 	List<Product> findAll();
+
+	// Bảng sản phẩm ở dashboard: chỉ cột nhẹ, không SELECT khoá ảnh / configuration
+	@Query("select new com.ductieng.dto.ProductRow(p.id, p.name, p.brand, p.price, p.quantity) from Product p order by p.id")
+	List<ProductRow> findAllRows();
 }
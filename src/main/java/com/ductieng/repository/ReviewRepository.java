@@ -8,9 +8,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.ductieng.dto.RatingAgg;
+import com.ductieng.dto.ReviewView;
 import com.ductieng.model.Laptop;
 import com.ductieng.model.Review;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
@@ -35,6 +37,26 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @EntityGraph(attributePaths = {"user", "laptop"})
     List<Review> findByLaptopIdOrderByCreatedAtDesc(Long laptopId);
 
+    // Trang đầu review cho trang chi tiết (projection, mới nhất trước)
+    @Query("""
+        select new com.ductieng.dto.ReviewView(r.id, u.username, r.rating, r.comment, r.createdAt)
+        from Review r join r.user u
+        where r.laptop.id = :laptopId
+        order by r.createdAt desc, r.id desc
+        """)
+    List<ReviewView> findViewsByLaptopId(@Param("laptopId") Long laptopId, Pageable pageable);
+
+    // Trang kế theo keyset (createdAt, id) – chạy trên idx_reviews_laptop_created, không OFFSET
+    @Query("""
+        select new com.ductieng.dto.ReviewView(r.id, u.username, r.rating, r.comment, r.createdAt)
+        from Review r join r.user u
+        where r.laptop.id = :laptopId
+          and (r.createdAt < :createdAt or (r.createdAt = :createdAt and r.id < :id))
+        order by r.createdAt desc, r.id desc
+        """)
+    List<ReviewView> findViewsByLaptopIdAfter(@Param("laptopId") Long laptopId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
     // Tuỳ chọn: chặn user review trùng
     boolean existsByLaptopIdAndUserId(Long laptopId, Long userId);
 
@@ -0,0 +1,131 @@
+package com.ductieng.service;
+
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.geometry.Positions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.ductieng.exception.UploadRejectedException;
+import com.ductieng.util.ImageOps;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ảnh đại diện: lưu trong {app.upload.base-dir}/avatars (không ghi vào classpath),
+ * sinh sẵn 3 cỡ vuông 32/64/128px ngay lúc upload.
+ * <p>
+ * Tên file = 16 ký tự đầu SHA-256 của ảnh gốc + cỡ, vd /avatars/3fa9...-64.jpg: đổi ảnh là đổi
+ * URL nên phục vụ được với Cache-Control immutable (xem StaticResourceConfig).
+ * User.avatarUrl lưu URL bản 128px; trang cần cỡ khác dùng {@code @avatarService.url(url, 32)}.
+ */
+@Service
+public class AvatarService {
+
+    public static final int[] SIZES = { 32, 64, 128 };
+    public static final String URL_PREFIX = "/avatars/";
+
+    private static final Pattern OWN_URL = Pattern.compile("^/avatars/([0-9a-f]{16})-\\d+\\.jpg$");
+
+    private final Path dir;
+    private final UploadService uploads;
+    private final long maxPixels;
+
+    public AvatarService(@Value("${app.upload.base-dir:uploads}") String baseDir, UploadService uploads,
+            @Value("${app.upload.avatar.max-pixels:25000000}") long maxPixels) throws IOException {
+        this.dir = Paths.get(baseDir).toAbsolutePath().normalize().resolve("avatars");
+        this.uploads = uploads;
+        this.maxPixels = maxPixels;
+        Files.createDirectories(dir);
+    }
+
+    /**
+     * Kiểm tra + giải mã ảnh upload 1 lần (xoay theo EXIF), cắt vuông giữa ảnh, ghi 3 cỡ JPEG.
+     * Kích thước đọc từ header trước: vượt max-pixels thì từ chối, không giải mã.
+     * Trả URL bản 128px; file trống -> null.
+     */
+    public String save(MultipartFile file) throws IOException {
+        MessageDigest sha = sha256();
+        BufferedImage src = uploads.consume(file, UploadService.Kind.AVATAR, in -> {
+            DigestInputStream din = new DigestInputStream(in, sha);
+            // mark/reset: đọc header rồi giải mã lại từ đầu (file avatar đã giới hạn vài MB)
+            BufferedInputStream buf = new BufferedInputStream(din);
+            buf.mark(Integer.MAX_VALUE);
+            Dimension d = ImageOps.readSize(buf);
+            if (ImageOps.pixels(d) > maxPixels)
+                throw new UploadRejectedException("Ảnh quá lớn (" + d.width + "x" + d.height + ")");
+            buf.reset();
+            BufferedImage img = Thumbnails.of(buf).scale(1.0).asBufferedImage();
+            din.transferTo(OutputStream.nullOutputStream()); // băm cả phần decoder không đọc tới
+            return img;
+        });
+        if (src == null)
+            return null;
+        String hash = HexFormat.of().formatHex(sha.digest()).substring(0, 16);
+        BufferedImage rgb = ImageOps.flatten(src);
+        for (int size : SIZES) {
+            Path target = dir.resolve(fileName(hash, size));
+            if (Files.exists(target)) // cùng ảnh đã upload trước đó
+                continue;
+            Path temp = Files.createTempFile(dir, ".av-", ".part");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    Thumbnails.of(rgb)
+                            .size(size, size)
+                            .crop(Positions.CENTER)
+                            .outputFormat("jpg")
+                            .outputQuality(0.85f)
+                            .toOutputStream(out);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return URL_PREFIX + fileName(hash, SIZES[SIZES.length - 1]);
+    }
+
+    /**
+     * URL avatar ở cỡ gần nhất >= {@code size}. URL không do service này sinh
+     * (avatar cũ, ảnh Google...) thì trả nguyên.
+     */
+    public String url(String avatarUrl, int size) {
+        if (avatarUrl == null)
+            return null;
+        Matcher m = OWN_URL.matcher(avatarUrl);
+        if (!m.matches())
+            return avatarUrl;
+        int pick = SIZES[SIZES.length - 1];
+        for (int s : SIZES) {
+            if (s >= size) {
+                pick = s;
+                break;
+            }
+        }
+        return URL_PREFIX + fileName(m.group(1), pick);
+    }
+
+    private static String fileName(String hash, int size) {
+        return hash + "-" + size + ".jpg";
+    }
+
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -8,7 +8,7 @@ import java.util.Optional;
 public interface BrandService {
 
     /**
-     * Lấy tất cả brands, sắp xếp theo tên
+     * Lấy tất cả brands, sắp xếp theo tên (danh sách dùng chung, chỉ đọc)
      */
     List<Brand> getAllBrands();
 
@@ -4,6 +4,7 @@ import org.springframework.security.core.Authentication;
 
 import com.ductieng.model.CartItem;
 
+import java.time.Duration;
 import java.util.List;
 
 public interface CartService {
@@ -18,10 +19,23 @@ public interface CartService {
 
     int getItemCount();
 
+    /**
+     * Phiên bản giỏ của người xem hiện tại, đổi mỗi khi giỏ bị ghi (từ bất kỳ session nào).
+     * Chỉ đọc RAM, không chạm DB – dùng để ghép ETag.
+     */
+    long getCartVersion();
+
     double getTotalPrice();
 
     void clear();
 
     // Đồng bộ với CartServiceImpl anh gửi
     void addToCart(Long id, int quantity, Authentication auth);
+
+    /**
+     * Xoá giỏ của khách (chưa đăng nhập) không đụng tới quá maxIdle.
+     *
+     * @return số dòng đã xoá
+     */
+    int purgeGuestCarts(Duration maxIdle);
 }
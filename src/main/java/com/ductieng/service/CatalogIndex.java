@@ -0,0 +1,493 @@
+package com.ductieng.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ductieng.dto.CatalogFacets;
+import com.ductieng.dto.CatalogRow;
+import com.ductieng.dto.LaptopCursor;
+import com.ductieng.dto.LaptopFilter;
+import com.ductieng.event.CatalogChangedEvent;
+import com.ductieng.event.CatalogRowChangedEvent;
+import com.ductieng.repository.LaptopRepository;
+import com.ductieng.util.LaptopSpecs;
+
+import java.util.*;
+
+/**
+ * Index đọc in-memory cho trang danh sách laptop.
+ * <p>
+ * Mỗi thuộc tính lọc được lưu thành 1 mảng nguyên thuỷ (cột), kèm sẵn các hoán vị
+ * đã sắp xếp cho từng kiểu sort. Lọc + sort + phân trang + đếm facet chỉ là vài vòng
+ * lặp trên mảng, không chạm MySQL. Snapshot bất biến, thay nguyên khối khi có thay đổi
+ * (copy-on-write) nên đọc không cần khoá. Laptop sửa ở node khác được vá khi ClusterSignals
+ * phát lại CatalogChangedEvent.
+ */
+@Service
+public class CatalogIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndex.class);
+
+    /**
+     * Khoảng giá cố định của sidebar (khớp giá trị priceRange trên list-laptops).
+     * Đóng 2 đầu [min, max] như bộ lọc giá: số đếm mỗi khoảng = đúng số SP khi chọn khoảng đó
+     * (laptop giá đúng 10tr / 30tr được đếm ở cả 2 khoảng kề nhau).
+     */
+    public static final List<String> PRICE_BUCKETS = List.of("0-10000000", "10000000-30000000", "30000000-");
+    private static final double[][] PRICE_BOUNDS = {
+            { 0, 10_000_000 }, { 10_000_000, 30_000_000 }, { 30_000_000, Double.POSITIVE_INFINITY } };
+
+    private static final String[] CPU_FAMILIES = { null, LaptopSpecs.INTEL, LaptopSpecs.AMD, LaptopSpecs.APPLE };
+
+    // Bit cho từng nhóm facet (dùng để biết 1 dòng trượt những bộ lọc nào)
+    private static final int F_BRAND = 1, F_RAM = 2, F_CPU = 4, F_CATEGORY = 8, F_PRICE = 16;
+
+    private final LaptopRepository laptopRepo;
+    private final ProductSearchIndex searchIndex;
+    private final ApplicationEventPublisher events;
+
+    private volatile Snapshot snapshot;
+
+    public CatalogIndex(LaptopRepository laptopRepo, ProductSearchIndex searchIndex,
+            ApplicationEventPublisher events) {
+        this.laptopRepo = laptopRepo;
+        this.searchIndex = searchIndex;
+        this.events = events;
+    }
+
+    /** Kết quả 1 trang: id theo đúng thứ tự hiển thị + tổng số dòng khớp. */
+    public record Hits(List<Long> ids, long total, int page, int size) {
+    }
+
+    // ===== Query =====
+
+    /**
+     * Lọc + sắp xếp + phân trang giống hệt LaptopService.filter (trang vượt quá bị kẹp về
+     * trang cuối). Có từ khoá mà không chọn sort -> xếp theo độ liên quan.
+     */
+    public Hits query(LaptopFilter f, int page, int size, String sort) {
+        Snapshot s = snapshot();
+        int pageSize = Math.max(size, 1);
+        Matcher m = new Matcher(s, f, keywordRows(s, f));
+
+        BitSet hits = new BitSet(s.n);
+        for (int r = 0; r < s.n; r++) {
+            if (m.keywordOk(r) && m.fails(r) == 0)
+                hits.set(r);
+        }
+        int total = hits.cardinality();
+        int lastPage = (total == 0) ? 0 : (total - 1) / pageSize;
+        int p = Math.min(Math.max(page, 0), lastPage);
+
+        int skip = p * pageSize;
+        List<Long> ids = new ArrayList<>(Math.min(pageSize, total));
+        boolean byRelevance = m.ranked != null && (sort == null || sort.isBlank());
+        int[] order = byRelevance ? m.ranked : s.order(sort);
+        boolean reverse = "new".equals(sort);
+        for (int i = 0; i < order.length && ids.size() < pageSize; i++) {
+            int r = order[reverse ? order.length - 1 - i : i];
+            if (!hits.get(r))
+                continue;
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            ids.add(s.ids[r]);
+        }
+        return new Hits(ids, total, p, pageSize);
+    }
+
+    /**
+     * Phân trang theo con trỏ: trả tối đa {@code limit} id đứng sau {@code after} trong
+     * thứ tự của {@code sort} (không xếp theo độ liên quan vì điểm số không ổn định
+     * giữa các lần tải). after = null -> từ đầu danh sách.
+     */
+    public List<Long> scroll(LaptopFilter f, String sort, LaptopCursor after, int limit) {
+        Snapshot s = snapshot();
+        Matcher m = new Matcher(s, f, keywordRows(s, f));
+        String key = LaptopCursor.normalizeSort(sort);
+        int[] order = s.order(key);
+        boolean reverse = "new".equals(key);
+
+        // Thứ tự sắp sẵn cùng quy tắc với isAfter -> tìm nhị phân vị trí con trỏ, trang sâu không phải duyệt lại từ đầu
+        int from = 0;
+        if (after != null) {
+            int hi = order.length;
+            while (from < hi) {
+                int mid = (from + hi) >>> 1;
+                if (s.isAfter(order[reverse ? order.length - 1 - mid : mid], key, after))
+                    hi = mid;
+                else
+                    from = mid + 1;
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(Math.max(limit, 0));
+        for (int i = from; i < order.length && ids.size() < limit; i++) {
+            int r = order[reverse ? order.length - 1 - i : i];
+            if (m.keywordOk(r) && m.fails(r) == 0)
+                ids.add(s.ids[r]);
+        }
+        return ids;
+    }
+
+    /**
+     * Đếm facet trong 1 lượt duyệt: dòng khớp mọi bộ lọc được cộng vào tất cả nhóm;
+     * dòng chỉ trượt đúng 1 bộ lọc được cộng vào riêng nhóm của bộ lọc đó.
+     */
+    public CatalogFacets facets(LaptopFilter f) {
+        Snapshot s = snapshot();
+        Matcher m = new Matcher(s, f, keywordRows(s, f));
+
+        long[] brandCnt = new long[s.brandNames.length];
+        Map<Integer, Long> ram = new TreeMap<>();
+        long[] cpuCnt = new long[CPU_FAMILIES.length];
+        Map<Long, Long> categories = new TreeMap<>();
+        long[] priceCnt = new long[PRICE_BOUNDS.length];
+        long total = 0, inStock = 0;
+
+        for (int r = 0; r < s.n; r++) {
+            if (!m.keywordOk(r))
+                continue;
+            int fails = m.fails(r);
+            if (fails != 0 && Integer.bitCount(fails) > 1)
+                continue;
+
+            if ((fails & ~F_BRAND) == 0 && s.brand[r] >= 0)
+                brandCnt[s.brand[r]]++;
+            if ((fails & ~F_RAM) == 0 && s.ram[r] > 0)
+                ram.merge(s.ram[r], 1L, Long::sum);
+            if ((fails & ~F_CPU) == 0 && s.cpu[r] > 0)
+                cpuCnt[s.cpu[r]]++;
+            if ((fails & ~F_CATEGORY) == 0 && s.category[r] != 0)
+                categories.merge(s.category[r], 1L, Long::sum);
+            if ((fails & ~F_PRICE) == 0 && !Double.isNaN(s.price[r])) {
+                for (int b = 0; b < PRICE_BOUNDS.length; b++) {
+                    if (s.price[r] >= PRICE_BOUNDS[b][0] && s.price[r] <= PRICE_BOUNDS[b][1])
+                        priceCnt[b]++;
+                }
+            }
+            if (fails == 0) {
+                total++;
+                if (s.stock[r] > 0)
+                    inStock++;
+            }
+        }
+
+        Map<String, Long> brands = new LinkedHashMap<>();
+        for (int b = 0; b < brandCnt.length; b++) {
+            if (brandCnt[b] > 0)
+                brands.put(s.brandNames[b], brandCnt[b]);
+        }
+        Map<String, Long> cpus = new LinkedHashMap<>();
+        for (int c = 1; c < cpuCnt.length; c++) {
+            if (cpuCnt[c] > 0)
+                cpus.put(CPU_FAMILIES[c], cpuCnt[c]);
+        }
+        Map<String, Long> prices = new LinkedHashMap<>();
+        for (int b = 0; b < PRICE_BUCKETS.size(); b++) {
+            prices.put(PRICE_BUCKETS.get(b), priceCnt[b]);
+        }
+        return new CatalogFacets(total, inStock, brands, ram, cpus, categories, prices);
+    }
+
+    // ===== Build / patch =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<CatalogRow> rows = laptopRepo.findCatalogRows();
+        snapshot = new Snapshot(rows.toArray(new CatalogRow[0]), null, -1, -1, -1);
+        log.info("[Catalog] Đã dựng index cho {} laptop", rows.size());
+    }
+
+    /**
+     * Sau khi commit: nạp lại đúng 1 dòng (hoặc bỏ nếu đã bị xoá) rồi thay snapshot.
+     * Đọc DB và thay snapshot trong cùng 1 khoá: 2 commit sát nhau không thể áp ngược thứ tự
+     * (lần đọc sau luôn thấy dữ liệu mới hơn và được áp sau).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent e) {
+        if (e.laptopId() == null || snapshot == null)
+            return;
+        CatalogRow before, after;
+        synchronized (this) {
+            List<CatalogRow> fresh = laptopRepo.findCatalogRow(e.laptopId());
+            after = fresh.isEmpty() ? null : fresh.get(0);
+            Integer r0 = snapshot.rowOf.get(e.laptopId());
+            before = (r0 == null) ? null : snapshot.rows[r0];
+            snapshot = snapshot.with(e.laptopId(), after);
+        }
+        events.publishEvent(new CatalogRowChangedEvent(e.laptopId(), before, after));
+    }
+
+    /** Từ khoá -> các dòng khớp full-text, theo thứ tự liên quan giảm dần (null = không có từ khoá). */
+    private int[] keywordRows(Snapshot s, LaptopFilter f) {
+        if (f.keyword() == null)
+            return null;
+        return searchIndex.search(f.keyword(), Integer.MAX_VALUE).stream()
+                .map(h -> s.rowOf.get(h.id()))
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null)
+                    rebuild();
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    // ===== Cấu trúc cột =====
+
+    private static final class Snapshot {
+        final CatalogRow[] rows;
+        final int n;
+        final long[] ids;
+        final Map<Long, Integer> rowOf;
+        final double[] price; // NaN = null
+        final int[] ram;
+        final byte[] cpu; // index trong CPU_FAMILIES, 0 = không rõ
+        final String[] cpuModelLower;
+        final int[] brand; // index trong brandNames, -1 = null
+        final String[] brandNames;
+        final long[] category; // 0 = không có
+        final int[] stock;
+        final int[] byId; // id tăng dần ("new" = duyệt ngược)
+        final int[] byPriceAsc; // null trước, trùng giá -> id tăng dần
+        final int[] byPriceDesc; // null sau, trùng giá -> id tăng dần
+
+        /**
+         * prev = null -> sắp xếp lại từ đầu. Ngược lại chỉ vá các mảng sắp sẵn của prev
+         * (xem {@link #patchOrder}): bỏ dòng {@code drop}, đổi chỉ số {@code renameFrom} -> drop,
+         * chèn dòng {@code place} vào đúng vị trí.
+         */
+        Snapshot(CatalogRow[] rows, Snapshot prev, int drop, int renameFrom, int place) {
+            this.rows = rows;
+            this.n = rows.length;
+            ids = new long[n];
+            price = new double[n];
+            ram = new int[n];
+            cpu = new byte[n];
+            cpuModelLower = new String[n];
+            brand = new int[n];
+            category = new long[n];
+            stock = new int[n];
+            rowOf = new HashMap<>(n * 2);
+
+            Map<String, Integer> dict = new LinkedHashMap<>();
+            List<String> names = new ArrayList<>();
+            for (int r = 0; r < n; r++) {
+                CatalogRow row = rows[r];
+                ids[r] = row.id();
+                rowOf.put(row.id(), r);
+                price[r] = row.price() == null ? Double.NaN : row.price();
+                ram[r] = row.ramGb() == null ? 0 : row.ramGb();
+                cpu[r] = (byte) Math.max(0, Arrays.asList(CPU_FAMILIES).indexOf(row.cpuFamily()));
+                cpuModelLower[r] = row.cpuModel() == null ? null : row.cpuModel().toLowerCase(Locale.ROOT);
+                category[r] = row.categoryId() == null ? 0 : row.categoryId();
+                stock[r] = row.quantity() == null ? 0 : row.quantity();
+                if (row.brand() == null) {
+                    brand[r] = -1;
+                } else {
+                    String key = row.brand().toLowerCase(Locale.ROOT);
+                    Integer code = dict.get(key);
+                    if (code == null) {
+                        code = names.size();
+                        dict.put(key, code);
+                        names.add(row.brand());
+                    }
+                    brand[r] = code;
+                }
+            }
+            brandNames = names.toArray(new String[0]);
+
+            if (prev == null) {
+                byId = sortedRows(this::compareById);
+                byPriceAsc = sortedRows(this::comparePriceAsc);
+                byPriceDesc = sortedRows(this::comparePriceDesc);
+            } else {
+                byId = patchOrder(prev.byId, this::compareById, drop, renameFrom, place);
+                byPriceAsc = patchOrder(prev.byPriceAsc, this::comparePriceAsc, drop, renameFrom, place);
+                byPriceDesc = patchOrder(prev.byPriceDesc, this::comparePriceDesc, drop, renameFrom, place);
+            }
+        }
+
+        /**
+         * Snapshot mới sau khi dòng {@code id} đổi thành {@code row} (null = đã xoá).
+         * Chỉ số các dòng khác giữ nguyên (xoá = dời dòng cuối vào chỗ trống) nên các mảng
+         * sắp sẵn chỉ cần vá 1 vị trí thay vì sắp lại toàn bộ.
+         */
+        Snapshot with(Long id, CatalogRow row) {
+            Integer r0 = rowOf.get(id);
+            if (r0 == null && row == null)
+                return this;
+            if (r0 == null) { // thêm mới: nối cuối
+                CatalogRow[] next = Arrays.copyOf(rows, n + 1);
+                next[n] = row;
+                return new Snapshot(next, this, -1, -1, n);
+            }
+            if (row != null) { // sửa tại chỗ
+                CatalogRow[] next = rows.clone();
+                next[r0] = row;
+                return new Snapshot(next, this, r0, -1, r0);
+            }
+            // xoá: dòng cuối dời vào chỗ r0
+            CatalogRow[] next = Arrays.copyOf(rows, n - 1);
+            if (r0 < n - 1)
+                next[r0] = rows[n - 1];
+            return new Snapshot(next, this, r0, r0 < n - 1 ? n - 1 : -1, -1);
+        }
+
+        private int compareById(int a, int b) {
+            return Long.compare(ids[a], ids[b]);
+        }
+
+        private int comparePriceAsc(int a, int b) {
+            int c = comparePrice(a, b, true);
+            return c != 0 ? c : Long.compare(ids[a], ids[b]);
+        }
+
+        private int comparePriceDesc(int a, int b) {
+            int c = comparePrice(a, b, false);
+            return c != 0 ? c : Long.compare(ids[a], ids[b]);
+        }
+
+        /** Giống MySQL: NULL đứng đầu khi ASC, đứng cuối khi DESC. */
+        private int comparePrice(int a, int b, boolean asc) {
+            boolean na = Double.isNaN(price[a]), nb = Double.isNaN(price[b]);
+            if (na || nb)
+                return (na == nb) ? 0 : (na == asc ? -1 : 1);
+            return asc ? Double.compare(price[a], price[b]) : Double.compare(price[b], price[a]);
+        }
+
+        /** Dòng r có đứng sau con trỏ c trong thứ tự sort không (cùng quy tắc với các mảng sắp sẵn). */
+        boolean isAfter(int r, String sort, LaptopCursor c) {
+            int byPrice = switch (sort) {
+                case "priceAsc" -> comparePrice(price[r], c.price(), true);
+                case "priceDesc" -> comparePrice(price[r], c.price(), false);
+                default -> 0;
+            };
+            if (byPrice != 0)
+                return byPrice > 0;
+            return "new".equals(sort) ? ids[r] < c.id() : ids[r] > c.id();
+        }
+
+        private static int comparePrice(double p, Double cursorPrice, boolean asc) {
+            boolean na = Double.isNaN(p), nb = cursorPrice == null;
+            if (na || nb)
+                return (na == nb) ? 0 : (na == asc ? -1 : 1);
+            return asc ? Double.compare(p, cursorPrice) : Double.compare(cursorPrice, p);
+        }
+
+        private int[] sortedRows(Comparator<Integer> cmp) {
+            return java.util.stream.IntStream.range(0, n).boxed().sorted(cmp).mapToInt(Integer::intValue).toArray();
+        }
+
+        /** Chép hoán vị cũ (bỏ drop, đổi renameFrom -> drop) rồi chèn place bằng tìm kiếm nhị phân: O(n), không sort. */
+        private int[] patchOrder(int[] prev, Comparator<Integer> cmp, int drop, int renameFrom, int place) {
+            int[] out = new int[n];
+            int k = 0;
+            for (int r : prev) {
+                if (r == drop)
+                    continue;
+                out[k++] = (r == renameFrom) ? drop : r;
+            }
+            if (place >= 0) {
+                int lo = 0, hi = k;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (cmp.compare(out[mid], place) < 0)
+                        lo = mid + 1;
+                    else
+                        hi = mid;
+                }
+                System.arraycopy(out, lo, out, lo + 1, k - lo);
+                out[lo] = place;
+            }
+            return out;
+        }
+
+        int[] order(String sort) {
+            return switch (sort == null ? "" : sort) {
+                case "priceAsc" -> byPriceAsc;
+                case "priceDesc" -> byPriceDesc;
+                default -> byId;
+            };
+        }
+    }
+
+    /** Dịch LaptopFilter sang điều kiện trên các cột của 1 snapshot. */
+    private static final class Matcher {
+        final Snapshot s;
+        final LaptopFilter f;
+        final int[] ranked; // dòng khớp từ khoá theo độ liên quan, null = không lọc keyword
+        final BitSet keywordHits;
+        final int brandCode; // -2 = không lọc
+        final byte cpuFamily; // -1 = không lọc theo họ
+        final String cpuLike;
+
+        Matcher(Snapshot s, LaptopFilter f, int[] ranked) {
+            this.s = s;
+            this.f = f;
+            this.ranked = ranked;
+            if (ranked != null) {
+                keywordHits = new BitSet(s.n);
+                for (int r : ranked)
+                    keywordHits.set(r);
+            } else {
+                keywordHits = null;
+            }
+            if (f.brand() != null) {
+                int code = -1;
+                for (int b = 0; b < s.brandNames.length; b++) {
+                    if (s.brandNames[b].equalsIgnoreCase(f.brand()))
+                        code = b;
+                }
+                brandCode = code;
+            } else {
+                brandCode = -2;
+            }
+            String family = LaptopSpecs.normalizeFamily(f.cpu());
+            cpuFamily = (byte) (family != null ? Arrays.asList(CPU_FAMILIES).indexOf(family) : -1);
+            cpuLike = (f.cpu() != null && family == null) ? f.cpu().toLowerCase(Locale.ROOT) : null;
+        }
+
+        boolean keywordOk(int r) {
+            return keywordHits == null || keywordHits.get(r);
+        }
+
+        /** Bitmask các nhóm lọc mà dòng r không thoả. */
+        int fails(int r) {
+            int out = 0;
+            if (brandCode != -2 && (brandCode < 0 || s.brand[r] != brandCode))
+                out |= F_BRAND;
+            if (f.ramGb() != null && s.ram[r] != f.ramGb())
+                out |= F_RAM;
+            if (cpuFamily >= 0 && s.cpu[r] != cpuFamily)
+                out |= F_CPU;
+            if (cpuLike != null && (s.cpuModelLower[r] == null || !s.cpuModelLower[r].contains(cpuLike)))
+                out |= F_CPU;
+            if (f.categoryId() != null && s.category[r] != f.categoryId())
+                out |= F_CATEGORY;
+            if (f.minPrice() != null || f.maxPrice() != null) {
+                double p = s.price[r];
+                if (Double.isNaN(p)
+                        || (f.minPrice() != null && p < f.minPrice())
+                        || (f.maxPrice() != null && p > f.maxPrice()))
+                    out |= F_PRICE;
+            }
+            return out;
+        }
+    }
+}
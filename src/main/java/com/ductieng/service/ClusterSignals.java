@@ -0,0 +1,204 @@
+package com.ductieng.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ductieng.event.CartChangedEvent;
+import com.ductieng.event.CatalogChangedEvent;
+import com.ductieng.event.OrderStatusChangedEvent;
+import com.ductieng.event.ReferenceDataChangedEvent;
+import com.ductieng.event.ReviewChangedEvent;
+import com.ductieng.model.CacheSignal;
+import com.ductieng.model.OrderStatus;
+import com.ductieng.repository.CacheSignalRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kênh huỷ cache dùng chung giữa các node, đi qua bảng cache_signals.
+ * <p>
+ * Mọi cache / index trong RAM (CatalogIndex, ProductSearchIndex, SuggestIndex, ListingPageCache,
+ * ReferenceDataCache, ContentVersions, badge giỏ hàng) chỉ nghe sự kiện của node mình. Để chạy
+ * nhiều node sau load balancer (session đã nằm ở DB, xem SessionConfig):
+ * <ol>
+ * <li>mỗi sự kiện thay đổi được ghi thành 1 dòng ngay trước commit, trong cùng transaction
+ * (rollback -> không có tín hiệu);</li>
+ * <li>mỗi node đọc định kỳ các dòng mới của node khác (ClusterSignalJob) rồi phát lại đúng sự kiện
+ * đó ở local -> các listener sẵn có tự làm mới như khi thay đổi xảy ra tại chỗ.</li>
+ * </ol>
+ * Node khác thấy thay đổi chậm tối đa 1 chu kỳ đọc. id tự tăng có thể commit không theo thứ tự,
+ * nên con trỏ chỉ vượt qua lỗ hổng id sau gap-timeout (transaction đã rollback).
+ */
+@Service
+public class ClusterSignals {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterSignals.class);
+
+    static final String CATALOG = "catalog";
+    static final String REVIEW = "review";
+    static final String REFERENCE = "reference";
+    static final String ORDER = "order";
+    static final String CART = "cart";
+
+    public record Stats(String node, long sent, long received, long skippedGaps, long cursor, int pending) {
+    }
+
+    private final CacheSignalRepository repo;
+    private final ApplicationEventPublisher events;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+    private final String nodeId = UUID.randomUUID().toString();
+    // Đang phát lại tín hiệu của node khác -> không ghi lại thành tín hiệu mới
+    private final ThreadLocal<Boolean> replaying = ThreadLocal.withInitial(() -> false);
+
+    // Mọi id <= cursor đã xử lý (hoặc bỏ qua); seen = id > cursor đã xử lý, nằm sau 1 lỗ hổng
+    private long cursor = -1;
+    private final TreeSet<Long> seen = new TreeSet<>();
+    private long gapAt;
+    private long gapSince;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder skippedGaps = new LongAdder();
+
+    public ClusterSignals(CacheSignalRepository repo, ApplicationEventPublisher events,
+            @Value("${app.cluster.signals.enabled:true}") boolean enabled,
+            @Value("${app.cluster.signals.batch-size:1000}") int batchSize,
+            @Value("${app.cluster.signals.gap-timeout:10s}") Duration gapTimeout) {
+        this.repo = repo;
+        this.events = events;
+        this.enabled = enabled;
+        this.batchSize = Math.max(batchSize, 1);
+        this.gapTimeoutMs = gapTimeout.toMillis();
+    }
+
+    /** Bắt đầu từ tín hiệu mới nhất: cache của node này được dựng từ DB sau thời điểm này. */
+    @PostConstruct
+    synchronized void init() {
+        if (!enabled)
+            return;
+        try {
+            cursor = repo.maxId();
+        } catch (Exception e) {
+            log.warn("[Cluster] Chưa đọc được cache_signals, thử lại ở lần poll đầu: {}", e.getMessage());
+        }
+    }
+
+    // ===== Ghi (trước commit, cùng transaction) =====
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent e) {
+        record(CATALOG, e.laptopId(), null);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent e) {
+        record(REVIEW, e.laptopId(), null);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent e) {
+        record(REFERENCE, null, e.kind());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent e) {
+        record(ORDER, e.orderId(), e.status() == null ? null : e.status().name());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent e) {
+        record(CART, null, e.ownerKey());
+    }
+
+    private void record(String kind, Long refId, String refKey) {
+        if (!enabled || replaying.get())
+            return;
+        repo.save(new CacheSignal(nodeId, kind, refId, refKey));
+        sent.increment();
+    }
+
+    // ===== Đọc (ClusterSignalJob) =====
+
+    /** Phát lại ở local các tín hiệu mới của node khác. */
+    public synchronized void poll() {
+        if (!enabled)
+            return;
+        if (cursor < 0) {
+            cursor = repo.maxId();
+            return;
+        }
+        List<CacheSignal> rows = repo.findAfter(cursor, PageRequest.of(0, batchSize));
+        for (CacheSignal s : rows) {
+            if (!seen.add(s.getId()))
+                continue;
+            if (!nodeId.equals(s.getNodeId()))
+                replay(s);
+        }
+        advance(System.currentTimeMillis());
+    }
+
+    /** Đẩy con trỏ qua các id liền mạch; lỗ hổng tồn tại quá gap-timeout thì bỏ qua. */
+    private void advance(long now) {
+        while (!seen.isEmpty()) {
+            while (!seen.isEmpty() && seen.first() == cursor + 1)
+                cursor = seen.pollFirst();
+            if (seen.isEmpty())
+                break;
+            if (gapAt != cursor + 1) {
+                gapAt = cursor + 1;
+                gapSince = now;
+                return;
+            }
+            if (now - gapSince < gapTimeoutMs)
+                return;
+            skippedGaps.increment();
+            cursor = seen.first() - 1;
+        }
+    }
+
+    private void replay(CacheSignal s) {
+        Object event = switch (s.getKind()) {
+            case CATALOG -> new CatalogChangedEvent(s.getRefId());
+            case REVIEW -> new ReviewChangedEvent(s.getRefId());
+            case REFERENCE -> new ReferenceDataChangedEvent(s.getRefKey());
+            case ORDER -> new OrderStatusChangedEvent(s.getRefId(),
+                    s.getRefKey() == null ? null : OrderStatus.valueOf(s.getRefKey()));
+            case CART -> new CartChangedEvent(s.getRefKey());
+            default -> null;
+        };
+        if (event == null)
+            return;
+        replaying.set(true);
+        try {
+            events.publishEvent(event);
+            received.increment();
+        } catch (Exception e) {
+            log.warn("[Cluster] Phát lại tín hiệu {} lỗi: {}", s.getId(), e.getMessage());
+        } finally {
+            replaying.set(false);
+        }
+    }
+
+    /** Xoá tín hiệu cũ hơn {@code retention} (mọi node đã đọc từ lâu). */
+    public int purge(Duration retention) {
+        return repo.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(nodeId, sent.sum(), received.sum(), skippedGaps.sum(), cursor, seen.size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.ductieng.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ductieng.event.CatalogChangedEvent;
+import com.ductieng.event.OrderStatusChangedEvent;
+import com.ductieng.event.ReferenceDataChangedEvent;
+import com.ductieng.event.ReviewChangedEvent;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Số phiên bản (tăng dần, chỉ nằm trong RAM) của nội dung storefront, dùng làm ETag.
+ * <p>
+ * Bộ đếm bắt đầu từ thời điểm khởi động (ms) nên sau khi restart mọi ETag cũ đều
+ * lệch -> trình duyệt tải lại 1 lần, không bao giờ nhận nhầm 304. Mọi thay đổi
+ * cập nhật sau commit, không cần đọc DB khi so ETag. Thay đổi ở node khác đến qua
+ * ClusterSignals (phát lại cùng sự kiện). Bộ đếm mỗi node độc lập nên ETag phải kèm
+ * {@link #node()}: số của 2 node có thể trùng nhau dù nội dung khác.
+ */
+@Service
+public class ContentVersions {
+
+    private final String node = UUID.randomUUID().toString().substring(0, 8);
+    private final long bootVersion = System.currentTimeMillis();
+    private final AtomicLong clock = new AtomicLong(bootVersion);
+
+    private volatile Version catalog = new Version(bootVersion, bootVersion);
+    private volatile Version site = new Version(bootVersion, bootVersion);
+    private volatile Version orders = new Version(bootVersion, bootVersion);
+    private final Map<Long, Version> products = new ConcurrentHashMap<>();
+
+    /** Số phiên bản + thời điểm đổi (ms, cho Last-Modified). */
+    public record Version(long value, long modifiedAt) {
+    }
+
+    /** Định danh node (đổi mỗi lần khởi động), ghép vào ETag. */
+    public String node() {
+        return node;
+    }
+
+    /** Toàn bộ catalog: đổi khi bất kỳ SP / giá / tồn kho / review nào đổi. */
+    public Version catalog() {
+        return catalog;
+    }
+
+    /** 1 sản phẩm: thông tin SP, tồn kho và review của SP đó. */
+    public Version product(Long id) {
+        return products.getOrDefault(id, new Version(bootVersion, bootVersion));
+    }
+
+    /** Dữ liệu dùng chung mọi trang: brand, thông báo/banner. */
+    public Version site() {
+        return site;
+    }
+
+    /** Trạng thái đơn hàng (quyết định quyền đánh giá trên trang chi tiết). */
+    public Version orders() {
+        return orders;
+    }
+
+    // ===== Cập nhật (sau commit) =====
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent e) {
+        touchProduct(e.laptopId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent e) {
+        touchProduct(e.laptopId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onReferenceDataChanged(ReferenceDataChangedEvent e) {
+        site = next();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderStatusChanged(OrderStatusChangedEvent e) {
+        orders = next();
+    }
+
+    private synchronized void touchProduct(Long id) {
+        Version v = next();
+        if (id != null)
+            products.put(id, v);
+        catalog = v;
+    }
+
+    private Version next() {
+        return new Version(clock.incrementAndGet(), System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,121 @@
+package com.ductieng.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Kho ảnh gốc trên đĩa, đánh địa chỉ theo nội dung: khoá = SHA-256 hex của bytes,
+ * file nằm ở {base}/images/originals/ab/abcdef... (2 ký tự đầu làm thư mục con).
+ * <p>
+ * Cùng nội dung -> cùng khoá -> chỉ lưu 1 bản (tải lại ảnh cũ không tốn thêm đĩa).
+ * File ghi ra tệp tạm rồi move nguyên tử nên không bao giờ đọc phải ảnh ghi dở.
+ * Vì nhiều SP có thể trỏ chung 1 file, kho không tự xoá khi SP đổi ảnh.
+ * Biến thể (ảnh thu nhỏ sinh sẵn) nằm ở {base}/images/variants/ab/abcdef.../{tên}.
+ */
+@Service
+public class ImageStore {
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path originals;
+    private final Path variants;
+    private final Path tmp;
+
+    public ImageStore(@Value("${app.upload.base-dir:uploads}") String baseDir) throws IOException {
+        Path images = Paths.get(baseDir).toAbsolutePath().normalize().resolve("images");
+        this.originals = images.resolve("originals");
+        this.variants = images.resolve("variants");
+        this.tmp = images.resolve("tmp");
+        Files.createDirectories(originals);
+        Files.createDirectories(variants);
+        Files.createDirectories(tmp);
+    }
+
+    /**
+     * Lưu ảnh, trả khoá nội dung (null nếu luồng rỗng).
+     * Đọc luồng đúng 1 lần, không giữ cả file trên heap.
+     */
+    public String put(InputStream in) throws IOException {
+        MessageDigest sha = sha256();
+        Path temp = Files.createTempFile(tmp, "up-", ".part");
+        try {
+            try (DigestInputStream din = new DigestInputStream(in, sha);
+                    OutputStream out = Files.newOutputStream(temp)) {
+                din.transferTo(out);
+            }
+            if (Files.size(temp) == 0)
+                return null;
+            String key = HexFormat.of().formatHex(sha.digest());
+            Path target = pathOf(key);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException raced) {
+                    // Request khác vừa ghi cùng nội dung -> dùng bản đã có
+                }
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public String put(byte[] data) throws IOException {
+        return put(new ByteArrayInputStream(data));
+    }
+
+    /** Đường dẫn file gốc nếu khoá hợp lệ và file tồn tại. */
+    public Optional<Path> find(String key) {
+        if (!isKey(key))
+            return Optional.empty();
+        Path p = pathOf(key);
+        return Files.isRegularFile(p) ? Optional.of(p) : Optional.empty();
+    }
+
+    /** Đường dẫn biến thể {@code name} (vd "card.jpg") của ảnh gốc; file có thể chưa tồn tại. */
+    public Path variantPath(String key, String name) {
+        if (!isKey(key))
+            throw new IllegalArgumentException("Khoá ảnh không hợp lệ");
+        return variants.resolve(key.substring(0, 2)).resolve(key).resolve(name);
+    }
+
+    /** Tệp tạm cùng ổ đĩa với kho (để {@link #publish} move nguyên tử được). */
+    public Path newTempFile() throws IOException {
+        return Files.createTempFile(tmp, "var-", ".part");
+    }
+
+    /** Move nguyên tử tệp tạm vào vị trí đích (ghi đè nếu đã có). */
+    public void publish(Path temp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static boolean isKey(String key) {
+        return key != null && KEY.matcher(key).matches();
+    }
+
+    private Path pathOf(String key) {
+        return originals.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
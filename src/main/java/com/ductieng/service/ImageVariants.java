@@ -0,0 +1,347 @@
+package com.ductieng.service;
+
+import jakarta.annotation.PreDestroy;
+import net.coobird.thumbnailator.Thumbnails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ductieng.util.ImageOps;
+
+import javax.imageio.ImageIO;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pipeline xử lý ảnh gốc trong ImageStore, chạy ở pool luồng nền có giới hạn
+ * (request upload chỉ ghi file + băm, không giải mã ảnh):
+ * <ol>
+ * <li>master: đọc kích thước từ header trước, ảnh vượt max-pixels bị từ chối (không giải mã);
+ * xoay theo EXIF Orientation, bỏ metadata (EXIF/GPS...) do mã hoá lại,
+ * thu về tối đa max-dimension px, nền trắng cho ảnh trong suốt;</li>
+ * <li>biến thể thumb / card / detail / detail-2x từ master, mỗi cỡ 1 bản JPEG
+ * + WebP (writer ImageIO từ webp-imageio, libwebp kèm sẵn; nền tảng không nạp được
+ * thư viện native thì chỉ sinh JPEG).</li>
+ * </ol>
+ * w/h tuỳ ý được làm tròn lên cỡ sinh sẵn gần nhất nên không request nào phải resize.
+ * Ảnh cũ chưa xử lý: lần đọc đầu trả ảnh gốc và xếp hàng xử lý.
+ * Trạng thái từng ảnh (đang chờ / đang xử lý / xong / lỗi) xem qua {@link #status};
+ * ảnh lỗi được xếp hàng lại sau retry-after (lỗi đĩa / thiếu file tạm thời không thành vĩnh viễn).
+ */
+@Service
+public class ImageVariants {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariants.class);
+
+    /** Cỡ sinh sẵn: giới hạn chiều rộng (giữ tỉ lệ, không phóng to). */
+    public enum Size {
+        THUMB("thumb", 160),
+        CARD("card", 400),
+        DETAIL("detail", 800),
+        DETAIL_2X("detail-2x", 1600);
+
+        public final String label;
+        public final int width;
+
+        Size(String label, int width) {
+            this.label = label;
+            this.width = width;
+        }
+    }
+
+    /** Trạng thái xử lý 1 ảnh gốc. NONE = chưa xếp hàng (hàng đợi đầy / ảnh cũ). */
+    public enum State {
+        NONE, QUEUED, PROCESSING, DONE, FAILED
+    }
+
+    public static final String JPEG = "jpg";
+    public static final String WEBP = "webp";
+    private static final String MASTER = "master." + JPEG;
+
+    /** File biến thể tìm được. */
+    public record Hit(Path file, String contentType, String name) {
+    }
+
+    public record Status(State state, String error) {
+    }
+
+    public record Stats(long processed, long generated, long failed, long dropped, long hits, long misses,
+            int queued, int active, boolean webp) {
+    }
+
+    private final ImageStore imageStore;
+    private final int maxDimension;
+    private final long maxPixels;
+    private final long retryAfterMs;
+    private final boolean webpEnabled;
+    private final ThreadPoolExecutor executor;
+    // Ảnh đang chờ / đang xử lý -> không xếp hàng trùng; ảnh lỗi giữ lại để báo admin
+    private final Map<String, Status> tracked = new ConcurrentHashMap<>();
+    // Ảnh lỗi -> thời điểm được xếp hàng lại
+    private final Map<String, Long> failedUntil = new ConcurrentHashMap<>();
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ImageVariants(ImageStore imageStore,
+            @Value("${app.images.max-dimension:2400}") int maxDimension,
+            @Value("${app.images.max-pixels:50000000}") long maxPixels,
+            @Value("${app.images.variants.threads:2}") int threads,
+            @Value("${app.images.variants.queue-capacity:500}") int queueCapacity,
+            @Value("${app.images.variants.retry-after:10m}") Duration retryAfter) {
+        this.imageStore = imageStore;
+        this.maxDimension = Math.max(maxDimension, Size.DETAIL_2X.width);
+        this.maxPixels = maxPixels;
+        this.retryAfterMs = retryAfter.toMillis();
+        this.webpEnabled = canWriteWebp();
+        AtomicInteger seq = new AtomicInteger();
+        int n = Math.max(threads, 1);
+        this.executor = new ThreadPoolExecutor(n, n, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), r -> {
+                    Thread t = new Thread(r, "image-variants-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+    }
+
+    /** Thử mã hoá 1 ảnh 1x1: có writer mà thư viện native không nạp được thì coi như không có WebP. */
+    private static boolean canWriteWebp() {
+        if (!ImageIO.getImageWritersByFormatName(WEBP).hasNext())
+            return false;
+        try {
+            return ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), WEBP,
+                    OutputStream.nullOutputStream());
+        } catch (IOException | LinkageError e) {
+            log.warn("[Image] Không dùng được WebP encoder, chỉ sinh JPEG: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Cỡ sinh sẵn nhỏ nhất phủ được w/h yêu cầu (lớn hơn cỡ lớn nhất -> cỡ lớn nhất). */
+    public static Size snap(Integer w, Integer h) {
+        int target = Math.max(w != null ? w : 0, h != null ? h : 0);
+        for (Size s : Size.values()) {
+            if (s.width >= target)
+                return s;
+        }
+        return Size.DETAIL_2X;
+    }
+
+    /**
+     * Xếp hàng xử lý ảnh gốc {@code key}; đang chờ hoặc lỗi chưa hết retry-after thì bỏ qua.
+     * false = hàng đợi đầy, không nhận thêm.
+     */
+    public boolean enqueue(String key) {
+        if (!ImageStore.isKey(key))
+            return true;
+        Status queued = new Status(State.QUEUED, null);
+        if (tracked.putIfAbsent(key, queued) != null && !retryFailed(key, queued))
+            return true;
+        try {
+            executor.execute(() -> process(key));
+            return true;
+        } catch (RejectedExecutionException e) {
+            tracked.remove(key);
+            dropped.increment();
+            return false;
+        }
+    }
+
+    /** Ảnh lỗi đã hết retry-after -> chuyển lại QUEUED (CAS, chỉ 1 luồng thắng). */
+    private boolean retryFailed(String key, Status queued) {
+        Status cur = tracked.get(key);
+        if (cur == null || cur.state() != State.FAILED
+                || System.currentTimeMillis() < failedUntil.getOrDefault(key, 0L))
+            return false;
+        if (!tracked.replace(key, cur, queued))
+            return false;
+        failedUntil.remove(key);
+        return true;
+    }
+
+    /** Trạng thái xử lý của các ảnh, theo đúng thứ tự khoá truyền vào. */
+    public Map<String, Status> status(Collection<String> keys) {
+        Map<String, Status> out = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (!ImageStore.isKey(key))
+                continue;
+            Status st = tracked.get(key);
+            out.put(key, st != null ? st : new Status(isComplete(key) ? State.DONE : State.NONE, null));
+        }
+        return out;
+    }
+
+    /** Ảnh master đã chuẩn hoá (nếu pipeline đã chạy xong bước 1). */
+    public Optional<Path> master(String key) {
+        if (!ImageStore.isKey(key))
+            return Optional.empty();
+        Path p = imageStore.variantPath(key, MASTER);
+        return Files.isRegularFile(p) ? Optional.of(p) : Optional.empty();
+    }
+
+    /**
+     * Biến thể cỡ {@code size}, ưu tiên WebP nếu client nhận. Chưa có -> empty
+     * và xếp hàng xử lý (request này dùng ảnh gốc).
+     */
+    public Optional<Hit> find(String key, Size size, boolean acceptWebp) {
+        if (!ImageStore.isKey(key))
+            return Optional.empty();
+        if (acceptWebp && webpEnabled) {
+            Path p = imageStore.variantPath(key, fileName(size, WEBP));
+            if (Files.isRegularFile(p)) {
+                hits.increment();
+                return Optional.of(new Hit(p, "image/webp", fileName(size, WEBP)));
+            }
+        }
+        Path p = imageStore.variantPath(key, fileName(size, JPEG));
+        if (Files.isRegularFile(p)) {
+            hits.increment();
+            return Optional.of(new Hit(p, "image/jpeg", fileName(size, JPEG)));
+        }
+        misses.increment();
+        enqueue(key);
+        return Optional.empty();
+    }
+
+    public Stats stats() {
+        return new Stats(processed.sum(), generated.sum(), failed.sum(), dropped.sum(), hits.sum(), misses.sum(),
+                executor.getQueue().size(), executor.getActiveCount(), webpEnabled);
+    }
+
+    private List<String> formats() {
+        return webpEnabled ? List.of(JPEG, WEBP) : List.of(JPEG);
+    }
+
+    private static String fileName(Size size, String format) {
+        return size.label + "." + format;
+    }
+
+    private void process(String key) {
+        tracked.put(key, new Status(State.PROCESSING, null));
+        try {
+            generateMissing(key);
+            processed.increment();
+            tracked.remove(key); // xong -> suy ra từ file trên đĩa, không cần giữ trong RAM
+        } catch (Exception ex) {
+            failed.increment();
+            // Giữ trạng thái lỗi để admin thấy lý do; enqueue sau retry-after sẽ thử lại
+            failedUntil.put(key, System.currentTimeMillis() + retryAfterMs);
+            tracked.put(key, new Status(State.FAILED, ex.getMessage()));
+            log.warn("[Image] Xử lý ảnh {} lỗi: {}", key, ex.getMessage());
+        }
+    }
+
+    /** Giải mã ảnh gốc 1 lần, chuẩn hoá thành master rồi sinh mọi biến thể chưa có. */
+    private void generateMissing(String key) throws IOException {
+        if (isComplete(key))
+            return;
+        Path original = imageStore.find(key)
+                .orElseThrow(() -> new IOException("Không tìm thấy ảnh gốc"));
+
+        BufferedImage master;
+        Path masterFile = imageStore.variantPath(key, MASTER);
+        if (Files.isRegularFile(masterFile)) {
+            master = ImageIO.read(masterFile.toFile());
+        } else {
+            master = normalize(original);
+            writeMaster(masterFile, master);
+            generated.increment();
+        }
+        if (master == null)
+            throw new IOException("Không đọc được ảnh master");
+
+        for (Size s : Size.values()) {
+            for (String f : formats()) {
+                if (!Files.isRegularFile(imageStore.variantPath(key, fileName(s, f)))) {
+                    write(key, master, s, f);
+                    generated.increment();
+                }
+            }
+        }
+    }
+
+    private boolean isComplete(String key) {
+        if (!Files.isRegularFile(imageStore.variantPath(key, MASTER)))
+            return false;
+        for (Size s : Size.values()) {
+            for (String f : formats()) {
+                if (!Files.isRegularFile(imageStore.variantPath(key, fileName(s, f))))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Kiểm tra kích thước qua header (quá maxPixels -> lỗi, không giải mã), rồi đọc ảnh gốc
+     * qua Thumbnailator từ file (tự xoay theo EXIF Orientation) và thu về tối đa maxDimension
+     * ngay lúc đọc, không giữ thêm bản đầy đủ; cuối cùng trải lên nền trắng.
+     */
+    private BufferedImage normalize(Path original) throws IOException {
+        Dimension d = ImageOps.readSize(original.toFile());
+        if (ImageOps.pixels(d) > maxPixels)
+            throw new IOException("Ảnh quá lớn (" + d.width + "x" + d.height + ")");
+        // size() phóng to cả ảnh nhỏ -> chỉ dùng khi ảnh vượt maxDimension
+        BufferedImage img = Math.max(d.width, d.height) > maxDimension
+                ? Thumbnails.of(original.toFile()).size(maxDimension, maxDimension).asBufferedImage()
+                : Thumbnails.of(original.toFile()).scale(1.0).asBufferedImage();
+        return ImageOps.flatten(img);
+    }
+
+    private void writeMaster(Path target, BufferedImage master) throws IOException {
+        Path temp = imageStore.newTempFile();
+        try {
+            // Mã hoá lại từ pixel -> không mang theo EXIF/ICC/GPS của file gốc
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                Thumbnails.of(master).scale(1.0).outputFormat(JPEG).outputQuality(0.9f).toOutputStream(out);
+            }
+            imageStore.publish(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void write(String key, BufferedImage src, Size size, String format) throws IOException {
+        Path temp = imageStore.newTempFile();
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                Thumbnails.of(src)
+                        .width(Math.min(size.width, src.getWidth())) // không phóng to ảnh nhỏ
+                        .outputFormat(format)
+                        .outputQuality(0.82f)
+                        .toOutputStream(out);
+            }
+            imageStore.publish(temp, imageStore.variantPath(key, fileName(size, format)));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
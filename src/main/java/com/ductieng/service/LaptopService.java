@@ -2,6 +2,10 @@ package com.ductieng.service;
 
 import org.springframework.data.domain.Page;
 
+import com.ductieng.dto.CatalogFacets;
+import com.ductieng.dto.CursorPage;
+import com.ductieng.dto.LaptopCard;
+import com.ductieng.dto.LaptopFilter;
 import com.ductieng.model.Laptop;
 
 import java.util.List;
@@ -27,10 +31,49 @@ public interface LaptopService {
      */
     Page<Laptop> searchByCategoryId(Long categoryId, String brand, int page, int size, String sort);
 
+    /**
+     * Lọc + sắp xếp + phân trang trang danh sách ngay trong DB.
+     * Trả về thẻ rút gọn (LaptopCard), không nạp entity nên không đụng cột ảnh BLOB.
+     * Trang vượt quá số trang thực tế sẽ được kẹp về trang cuối.
+     */
+    Page<LaptopCard> filter(LaptopFilter filter, int page, int size, String sort);
+
+    /**
+     * Phân trang theo con trỏ (keyset) thay cho OFFSET: trang sau bắt đầu ngay sau
+     * (cột sort, id) của dòng cuối trang trước nên trang sâu vẫn rẻ như trang đầu,
+     * và không bị lặp/sót dòng khi catalog thay đổi giữa 2 lần tải.
+     *
+     * @param cursor chuỗi nextCursor của lần gọi trước, null = trang đầu
+     * @throws IllegalArgumentException nếu cursor hỏng hoặc không cùng kiểu sort
+     */
+    CursorPage<LaptopCard> scroll(LaptopFilter filter, String sort, String cursor, int size);
+
+    /**
+     * Đếm số sản phẩm theo từng lựa chọn lọc (brand, RAM, CPU, danh mục, khoảng giá)
+     * cho tổ hợp bộ lọc hiện tại.
+     */
+    CatalogFacets facets(LaptopFilter filter);
+
+    /**
+     * Tìm kiếm full-text trên tên / hãng / cấu hình (bỏ dấu, chấm điểm liên quan,
+     * chịu được gõ sai nhẹ). Kết quả xếp theo độ liên quan giảm dần.
+     */
+    List<LaptopCard> searchText(String query, int limit);
+
     Laptop findById(Long id);
 
+    /** Khoá ảnh (ImageStore) của slot 1..5, null nếu SP / slot không có ảnh. */
+    String findImageKey(Long id, int index);
+
     Laptop save(Laptop laptop);
 
+    /**
+     * Bóc RAM/CPU cho 1 lô laptop chưa có cột ram_gb (dữ liệu cũ).
+     *
+     * @return số dòng đã xử lý; 0 nghĩa là đã backfill xong
+     */
+    int backfillSpecs(int batchSize);
+
     // Tiện ích cho các block cũ (không phân trang)
     List<Laptop> getOfficeLaptops();
 
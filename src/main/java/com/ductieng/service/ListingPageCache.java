@@ -0,0 +1,174 @@
+package com.ductieng.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ductieng.dto.CatalogRow;
+import com.ductieng.dto.LaptopCard;
+import com.ductieng.dto.LaptopCursor;
+import com.ductieng.dto.LaptopFilter;
+import com.ductieng.dto.RatingAgg;
+import com.ductieng.event.CatalogRowChangedEvent;
+import com.ductieng.event.ReviewChangedEvent;
+import com.ductieng.util.LaptopSpecs;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache LRU có giới hạn cho dữ liệu 1 trang /laptops (thẻ sản phẩm + rating),
+ * khoá theo bộ lọc đã chuẩn hoá + sort + trang.
+ * <p>
+ * Huỷ chính xác thay vì xoá sạch:
+ * <ul>
+ * <li>trang đang hiển thị laptop bị đổi (tên, ảnh, giá, tồn kho, review) -> bỏ;</li>
+ * <li>laptop vào/ra khỏi bộ lọc -> bỏ mọi trang của bộ lọc đó (tổng + vị trí đều lệch);</li>
+ * <li>đổi giá mà vẫn khớp -> chỉ bỏ các trang sort theo giá.</li>
+ * </ul>
+ * Truy vấn có từ khoá không được cache (đuôi dài, khó xác định trang nào bị ảnh hưởng).
+ * Cần CatalogIndex bật vì dựa vào CatalogRowChangedEvent để biết trạng thái trước/sau.
+ */
+@Service
+public class ListingPageCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+
+    private final LinkedHashMap<Key, Cached> entries;
+    private long generation; // tăng mỗi lần huỷ, để bỏ kết quả nạp dở đã cũ
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ListingPageCache(
+            @Value("${app.catalog.page-cache.enabled:true}") boolean enabled,
+            @Value("${app.catalog.index.enabled:true}") boolean indexEnabled,
+            @Value("${app.catalog.page-cache.max-entries:500}") int maxEntries) {
+        this.enabled = enabled && indexEnabled;
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+                if (size() > ListingPageCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Dữ liệu đã tính của 1 trang danh sách. */
+    public record Cached(Page<LaptopCard> page, Map<Long, RatingAgg> ratings) {
+
+        boolean shows(Long laptopId) {
+            return page.getContent().stream().anyMatch(c -> c.id().equals(laptopId));
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, long invalidations, int size, int maxEntries) {
+    }
+
+    private record Key(LaptopFilter filter, String sort, int page, int size) {
+
+        boolean sortedByPrice() {
+            return sort.startsWith("price");
+        }
+    }
+
+    // ===== Đọc =====
+
+    public Cached get(LaptopFilter filter, int page, int size, String sort, Supplier<Cached> loader) {
+        if (!enabled || filter.keyword() != null)
+            return loader.get();
+
+        Key key = new Key(filter, LaptopCursor.normalizeSort(sort), page, size);
+        long gen;
+        synchronized (this) {
+            Cached c = entries.get(key);
+            if (c != null) {
+                hits.increment();
+                return c;
+            }
+            gen = generation;
+        }
+        misses.increment();
+        Cached fresh = loader.get();
+        synchronized (this) {
+            // Có thay đổi trong lúc nạp -> không biết kết quả còn đúng không, bỏ qua
+            if (gen == generation)
+                entries.put(key, fresh);
+        }
+        return fresh;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), entries.size(), maxEntries);
+    }
+
+    // ===== Huỷ =====
+
+    @EventListener
+    public synchronized void onCatalogRowChanged(CatalogRowChangedEvent e) {
+        generation++;
+        CatalogRow before = e.before(), after = e.after();
+        boolean priceChanged = before == null || after == null || !Objects.equals(before.price(), after.price());
+
+        Iterator<Map.Entry<Key, Cached>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Cached> en = it.next();
+            Key k = en.getKey();
+            boolean was = before != null && matches(k.filter(), before);
+            boolean now = after != null && matches(k.filter(), after);
+            if (en.getValue().shows(e.laptopId())
+                    || was != now
+                    || (now && priceChanged && k.sortedByPrice())) {
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onReviewChanged(ReviewChangedEvent e) {
+        generation++;
+        Iterator<Cached> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().shows(e.laptopId())) {
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    /** Cùng điều kiện với CatalogIndex.Matcher (trừ từ khoá – không cache). */
+    private static boolean matches(LaptopFilter f, CatalogRow r) {
+        if (f.brand() != null && (r.brand() == null || !r.brand().equalsIgnoreCase(f.brand())))
+            return false;
+        if (f.ramGb() != null && !f.ramGb().equals(r.ramGb()))
+            return false;
+        if (f.cpu() != null) {
+            String family = LaptopSpecs.normalizeFamily(f.cpu());
+            boolean ok = (family != null)
+                    ? family.equals(r.cpuFamily())
+                    : r.cpuModel() != null && r.cpuModel().toLowerCase(Locale.ROOT)
+                            .contains(f.cpu().toLowerCase(Locale.ROOT));
+            if (!ok)
+                return false;
+        }
+        if (f.categoryId() != null && !f.categoryId().equals(r.categoryId()))
+            return false;
+        if (f.minPrice() != null || f.maxPrice() != null) {
+            Double p = r.price();
+            if (p == null || (f.minPrice() != null && p < f.minPrice()) || (f.maxPrice() != null && p > f.maxPrice()))
+                return false;
+        }
+        return true;
+    }
+}
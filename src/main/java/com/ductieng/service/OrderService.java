@@ -1,11 +1,14 @@
 package com.ductieng.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.ductieng.dto.CheckoutForm;
 import com.ductieng.dto.RevenueDataDto;
+import com.ductieng.event.CatalogChangedEvent;
+import com.ductieng.event.OrderStatusChangedEvent;
 import com.ductieng.model.CartItem;
 import com.ductieng.model.Order;
 import com.ductieng.model.OrderItem;
@@ -36,6 +39,9 @@ public class OrderService {
     @Autowired
     private LaptopRepository laptopRepo;
 
+    @Autowired
+    private ApplicationEventPublisher events;
+
     /**
      * Tạo đơn hàng mới với customer và status = PENDING.
      */
@@ -164,6 +170,7 @@ public class OrderService {
             ci.getLaptop().setQuantity(newQty);
             // PHẢI SAVE VÀO DATABASE
             laptopRepo.save(ci.getLaptop());
+            events.publishEvent(new CatalogChangedEvent(ci.getLaptop().getId()));
         }
 
         return orderRepo.save(o);
@@ -208,7 +215,9 @@ public class OrderService {
         if (newStatus == OrderStatus.DELIVERED) {
             o.setDeliveredAt(LocalDateTime.now());
         }
-        return orderRepo.save(o);
+        Order saved = orderRepo.save(o);
+        events.publishEvent(new OrderStatusChangedEvent(saved.getId(), newStatus));
+        return saved;
     }
 
     /** Xóa đơn hàng theo ID. */
@@ -310,6 +319,7 @@ public class OrderService {
             int restoredQty = currentQty + item.getQuantity();
             item.getProduct().setQuantity(restoredQty);
             laptopRepo.save(item.getProduct());
+            events.publishEvent(new CatalogChangedEvent(item.getProduct().getId()));
         }
 
         // TODO: Tạo yêu cầu refund nếu PaymentMethod != COD
@@ -343,6 +353,7 @@ public class OrderService {
             int restoredQty = currentQty + item.getQuantity();
             item.getProduct().setQuantity(restoredQty);
             laptopRepo.save(item.getProduct());
+            events.publishEvent(new CatalogChangedEvent(item.getProduct().getId()));
         }
 
         // TODO: Đánh dấu refund nếu cần
@@ -0,0 +1,116 @@
+package com.ductieng.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ductieng.dto.CursorPage;
+import com.ductieng.dto.ImageKeys;
+import com.ductieng.dto.ProductCore;
+import com.ductieng.dto.ProductDetail;
+import com.ductieng.dto.ReviewView;
+import com.ductieng.model.Laptop;
+import com.ductieng.repository.LaptopRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read model trang chi tiết SP: 2 câu truy vấn (lõi + cờ ảnh + rating, rồi trang đầu
+ * review) thay cho 5 lượt gọi riêng lẻ. Kết quả cache LRU theo SP, hợp lệ chừng nào
+ * phiên bản SP trong ContentVersions chưa đổi (sửa SP, tồn kho, review đều làm đổi).
+ */
+@Service
+public class ProductDetailService {
+
+    private final LaptopRepository laptopRepo;
+    private final ReviewService reviewService;
+    private final ContentVersions versions;
+    private final int firstPageReviews;
+    private final int maxEntries;
+
+    private final LinkedHashMap<Long, Cached> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ProductDetailService(LaptopRepository laptopRepo, ReviewService reviewService, ContentVersions versions,
+            @Value("${app.product.reviews.first-page:20}") int firstPageReviews,
+            @Value("${app.product.detail-cache.max-entries:1000}") int maxEntries) {
+        this.laptopRepo = laptopRepo;
+        this.reviewService = reviewService;
+        this.versions = versions;
+        this.firstPageReviews = Math.max(firstPageReviews, 1);
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+                if (size() > ProductDetailService.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private record Cached(long version, ProductDetail detail) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size, int maxEntries) {
+    }
+
+    /** @return null nếu SP không tồn tại */
+    @Transactional(readOnly = true)
+    public ProductDetail get(Long id) {
+        // Đọc phiên bản TRƯỚC khi nạp: có thay đổi trong lúc nạp thì lần sau sẽ lệch -> nạp lại
+        long version = versions.product(id).value();
+        synchronized (this) {
+            Cached c = entries.get(id);
+            if (c != null && c.version() == version) {
+                hits.increment();
+                return c.detail();
+            }
+        }
+        misses.increment();
+        ProductDetail detail = load(id);
+        if (detail != null) {
+            synchronized (this) {
+                entries.put(id, new Cached(version, detail));
+            }
+        }
+        return detail;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), maxEntries);
+    }
+
+    private ProductDetail load(Long id) {
+        ProductCore core = laptopRepo.findProductCore(id).orElse(null);
+        if (core == null)
+            return null;
+
+        List<ProductDetail.Image> images = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            String key = core.imageKey(i);
+            if (key != null)
+                images.add(new ProductDetail.Image(ImageKeys.url(id, i, key)));
+        }
+        String imageUrl = Laptop.publicImageUrl(core.imageUrl());
+        if ((imageUrl == null || imageUrl.isBlank()) && !images.isEmpty())
+            imageUrl = images.get(0).url();
+
+        long count = core.ratingCount() == null ? 0 : core.ratingCount();
+        double avg = (count == 0 || core.ratingSum() == null) ? 0.0 : (double) core.ratingSum() / count;
+        // Trang đầu review; phần còn lại trang SP tải thêm qua cursor
+        CursorPage<ReviewView> reviews = reviewService.scroll(id, null, firstPageReviews);
+
+        return new ProductDetail(core.id(), core.name(), core.brand(), core.price(), core.configuration(),
+                imageUrl, core.quantity(), List.copyOf(images), avg, count,
+                reviews.items(), reviews.nextCursor());
+    }
+}
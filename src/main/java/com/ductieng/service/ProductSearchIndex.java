@@ -0,0 +1,243 @@
+package com.ductieng.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ductieng.dto.SearchDoc;
+import com.ductieng.event.CatalogChangedEvent;
+import com.ductieng.repository.LaptopRepository;
+import com.ductieng.util.TextFold;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index in-memory cho tìm kiếm sản phẩm theo name / brand / configuration.
+ * <ul>
+ * <li>Bỏ dấu tiếng Việt trước khi tách từ (TextFold) -> "đồ họa" khớp "do hoa".</li>
+ * <li>Chấm điểm BM25, trọng số trường: name x3, brand x2, configuration x1.</li>
+ * <li>Mỗi từ khoá khớp chính xác, theo tiền tố (gõ dở) hoặc sai chính tả nhẹ
+ * (khoảng cách sửa 1-2 tuỳ độ dài); mọi từ khoá đều phải khớp (AND).</li>
+ * </ul>
+ * Cập nhật từng dòng sau commit qua CatalogChangedEvent.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final float W_NAME = 3f, W_BRAND = 2f, W_CONFIG = 1f;
+    private static final double K1 = 1.2, B = 0.75;
+    private static final double EXACT = 1.0, PREFIX = 0.7, FUZZY = 0.5;
+
+    private final LaptopRepository laptopRepo;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> (laptopId -> tf có trọng số)
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // độ dài -> các từ có độ dài đó: ứng viên sai chính tả chỉ nằm trong |len(q) - len(t)| <= maxEdits
+    private final Map<Integer, Set<String>> termsByLength = new HashMap<>();
+    // laptopId -> (term -> tf), để gỡ doc cũ khi cập nhật
+    private final Map<Long, Map<String, Float>> docTerms = new HashMap<>();
+    private final Map<Long, Float> docLen = new HashMap<>();
+    private double totalLen;
+    private volatile boolean loaded;
+
+    public ProductSearchIndex(LaptopRepository laptopRepo) {
+        this.laptopRepo = laptopRepo;
+    }
+
+    public record Hit(Long id, double score) {
+    }
+
+    // ===== Search =====
+
+    /** Trả về các laptop khớp, điểm cao trước (trùng điểm -> id tăng dần). */
+    public List<Hit> search(String query, int limit) {
+        List<String> qTerms = TextFold.tokens(query);
+        if (qTerms.isEmpty())
+            return List.of();
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            int n = docLen.size();
+            if (n == 0)
+                return List.of();
+            double avgLen = totalLen / n;
+
+            Map<Long, Double> scores = null;
+            for (String q : new LinkedHashSet<>(qTerms)) {
+                Map<Long, Double> termScores = scoreTerm(q, n, avgLen);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // AND: chỉ giữ doc khớp cả từ khoá này
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, sc) -> sc + termScores.get(id));
+                }
+                if (scores.isEmpty())
+                    return List.of();
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(Math.max(limit, 1))
+                    .map(e -> new Hit(e.getKey(), e.getValue()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Điểm của 1 từ khoá cho từng doc: lấy biến thể (chính xác/tiền tố/sai chính tả) điểm cao nhất. */
+    private Map<Long, Double> scoreTerm(String q, int n, double avgLen) {
+        Map<String, Double> variants = new HashMap<>();
+        if (postings.containsKey(q))
+            variants.put(q, EXACT);
+        if (q.length() >= 2) {
+            for (String t : postings.subMap(q, false, q + Character.MAX_VALUE, false).keySet())
+                variants.putIfAbsent(t, PREFIX);
+        }
+        int maxEdits = q.length() >= 8 ? 2 : (q.length() >= 4 ? 1 : 0);
+        // Chỉ so khoảng cách sửa với các từ cùng nhóm độ dài, không quét toàn bộ từ điển
+        for (int len = q.length() - maxEdits; maxEdits > 0 && len <= q.length() + maxEdits; len++) {
+            for (String t : termsByLength.getOrDefault(len, Set.of())) {
+                if (!variants.containsKey(t) && withinEdits(q, t, maxEdits))
+                    variants.put(t, FUZZY);
+            }
+        }
+
+        Map<Long, Double> out = new HashMap<>();
+        for (Map.Entry<String, Double> v : variants.entrySet()) {
+            Map<Long, Float> docs = postings.get(v.getKey());
+            double idf = Math.log(1 + (n - docs.size() + 0.5) / (docs.size() + 0.5));
+            for (Map.Entry<Long, Float> d : docs.entrySet()) {
+                double tf = d.getValue();
+                double norm = tf + K1 * (1 - B + B * docLen.get(d.getKey()) / avgLen);
+                double sc = v.getValue() * idf * (tf * (K1 + 1)) / norm;
+                out.merge(d.getKey(), sc, Math::max);
+            }
+        }
+        return out;
+    }
+
+    /** Khoảng cách sửa (có hoán vị kề) <= max, dừng sớm khi cả hàng đã vượt ngưỡng. */
+    static boolean withinEdits(String a, String b, int max) {
+        int[] prev2 = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++)
+            prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+                    v = Math.min(v, prev2[j - 2] + 1);
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > max)
+                return false;
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[b.length()] <= max;
+    }
+
+    // ===== Build / update =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<SearchDoc> docs = laptopRepo.findSearchDocs();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByLength.clear();
+            docTerms.clear();
+            docLen.clear();
+            totalLen = 0;
+            docs.forEach(this::addDoc);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("[Search] Đã index {} laptop, {} từ", docs.size(), postings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent e) {
+        if (e.laptopId() == null || !loaded)
+            return;
+        List<SearchDoc> fresh = laptopRepo.findSearchDoc(e.laptopId());
+        lock.writeLock().lock();
+        try {
+            removeDoc(e.laptopId());
+            fresh.forEach(this::addDoc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded)
+                    rebuild();
+            }
+        }
+    }
+
+    private void addDoc(SearchDoc d) {
+        Map<String, Float> tf = new HashMap<>();
+        addField(tf, d.name(), W_NAME);
+        addField(tf, d.brand(), W_BRAND);
+        addField(tf, d.configuration(), W_CONFIG);
+        float len = 0;
+        for (Map.Entry<String, Float> e : tf.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> {
+                termsByLength.computeIfAbsent(k.length(), x -> new HashSet<>()).add(k);
+                return new HashMap<>();
+            }).put(d.id(), e.getValue());
+            len += e.getValue();
+        }
+        docTerms.put(d.id(), tf);
+        docLen.put(d.id(), len);
+        totalLen += len;
+    }
+
+    private void removeDoc(Long id) {
+        Map<String, Float> tf = docTerms.remove(id);
+        if (tf == null)
+            return;
+        for (String t : tf.keySet()) {
+            Map<Long, Float> docs = postings.get(t);
+            if (docs != null) {
+                docs.remove(id);
+                if (docs.isEmpty()) {
+                    postings.remove(t);
+                    Set<String> sameLength = termsByLength.get(t.length());
+                    if (sameLength != null)
+                        sameLength.remove(t);
+                }
+            }
+        }
+        Float len = docLen.remove(id);
+        totalLen -= (len == null ? 0 : len);
+    }
+
+    private static void addField(Map<String, Float> tf, String text, float weight) {
+        for (String t : TextFold.tokens(text))
+            tf.merge(t, weight, Float::sum);
+    }
+}
@@ -4,10 +4,12 @@ import java.util.List;
 
 import org.springframework.ui.Model;
 
+import com.ductieng.dto.ProductRow;
 import com.ductieng.model.Product;
 
 public interface ProductService {
     List<Product> findAll();
+    List<ProductRow> findAllRows();
     Product    findById(Long id);
     Product    save(Product product);
     void       deleteById(Long id);
@@ -0,0 +1,141 @@
+package com.ductieng.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ductieng.event.ReferenceDataChangedEvent;
+import com.ductieng.model.Announcement;
+import com.ductieng.model.Brand;
+import com.ductieng.model.Category;
+import com.ductieng.repository.AnnouncementRepository;
+import com.ductieng.repository.BrandRepository;
+import com.ductieng.repository.CategoryRepository;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache dữ liệu tham chiếu gần như không đổi mà trang nào cũng cần: brand, danh mục,
+ * thông báo/banner đang bật. Đọc = 0 truy vấn; mỗi loại có số phiên bản riêng, tăng
+ * khi nhận ReferenceDataChangedEvent (sau commit, hoặc từ node khác qua ClusterSignals)
+ * và nạp lại ở lần đọc kế tiếp.
+ * <p>
+ * max-age là lưới an toàn cho thay đổi không đi qua service (sửa thẳng DB, ví dụ
+ * bảng categories hiện chưa có màn hình quản lý).
+ * Giá trị là entity đã tách khỏi session, dùng chung giữa các request -> chỉ đọc.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private final Slot<List<Brand>> brands;
+    private final Slot<List<Category>> categories;
+    private final Slot<Optional<Announcement>> announcement;
+
+    public ReferenceDataCache(BrandRepository brandRepo, CategoryRepository categoryRepo,
+            AnnouncementRepository announcementRepo,
+            @Value("${app.reference-data.max-age:5m}") Duration maxAge) {
+        long maxAgeMs = maxAge.toMillis();
+        this.brands = new Slot<>(maxAgeMs,
+                () -> List.copyOf(brandRepo.findAll(Sort.by(Sort.Direction.ASC, "name"))));
+        this.categories = new Slot<>(maxAgeMs, () -> List.copyOf(categoryRepo.findAll()));
+        this.announcement = new Slot<>(maxAgeMs, announcementRepo::findFirstByEnabledTrueOrderByUpdatedAtDesc);
+    }
+
+    public record Stats(long version, long hits, long loads, boolean loaded) {
+    }
+
+    // ===== Đọc =====
+
+    /** Tất cả brand, theo tên A-Z (danh sách không sửa được). */
+    public List<Brand> brands() {
+        return brands.get();
+    }
+
+    public List<Category> categories() {
+        return categories.get();
+    }
+
+    /** Thông báo/banner đang bật (mới cập nhật nhất). */
+    public Optional<Announcement> activeAnnouncement() {
+        return announcement.get();
+    }
+
+    public Map<String, Stats> stats() {
+        Map<String, Stats> out = new LinkedHashMap<>();
+        out.put(ReferenceDataChangedEvent.BRANDS, brands.stats());
+        out.put(ReferenceDataChangedEvent.CATEGORIES, categories.stats());
+        out.put(ReferenceDataChangedEvent.ANNOUNCEMENT, announcement.stats());
+        return out;
+    }
+
+    // ===== Huỷ (sau commit) =====
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent e) {
+        switch (e.kind() == null ? "" : e.kind()) {
+            case ReferenceDataChangedEvent.BRANDS -> brands.invalidate();
+            case ReferenceDataChangedEvent.CATEGORIES -> categories.invalidate();
+            case ReferenceDataChangedEvent.ANNOUNCEMENT -> announcement.invalidate();
+            default -> {
+                brands.invalidate();
+                categories.invalidate();
+                announcement.invalidate();
+            }
+        }
+    }
+
+    /** 1 giá trị cache + số phiên bản; nạp dở mà phiên bản đổi thì không lưu. */
+    private static final class Slot<T> {
+
+        private record Entry<T>(long loadedAt, T value) {
+        }
+
+        private final long maxAgeMs;
+        private final Supplier<T> loader;
+        private long version;
+        private volatile Entry<T> entry;
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder loads = new LongAdder();
+
+        Slot(long maxAgeMs, Supplier<T> loader) {
+            this.maxAgeMs = maxAgeMs;
+            this.loader = loader;
+        }
+
+        T get() {
+            Entry<T> e = entry;
+            if (e != null && (maxAgeMs <= 0 || System.currentTimeMillis() - e.loadedAt() < maxAgeMs)) {
+                hits.increment();
+                return e.value();
+            }
+            long v;
+            synchronized (this) {
+                v = version;
+            }
+            loads.increment();
+            T value = loader.get();
+            synchronized (this) {
+                if (v == version)
+                    entry = new Entry<>(System.currentTimeMillis(), value);
+            }
+            return value;
+        }
+
+        synchronized void invalidate() {
+            version++;
+            entry = null;
+        }
+
+        synchronized Stats stats() {
+            return new Stats(version, hits.sum(), loads.sum(), entry != null);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.ductieng.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.ductieng.util.ImageTypes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Proxy cache cho ảnh SP trỏ tới URL ngoài (http/https).
+ * <p>
+ * Tải về 1 lần (timeout kết nối / từng lần đọc + hạn chót cho cả lượt tải, giới hạn dung lượng,
+ * phải đúng là ảnh) và lưu ở {base}/images/remote/{sha256(url)}.bin kèm .meta (ETag,
+ * Last-Modified, thời điểm tải). Tổng dung lượng thư mục giới hạn bởi disk.max-size: vượt thì
+ * xoá các ảnh lâu nhất chưa được tải / xác nhận lại (ảnh hết hạn nằm đầu danh sách).
+ * Còn hạn TTL -> đọc đĩa. Hết hạn -> vẫn trả bản trên đĩa ngay, làm mới ở luồng nền bằng
+ * If-None-Match / If-Modified-Since (304 chỉ gia hạn). Origin lỗi -> tiếp tục dùng bản cũ.
+ * Lần tải đầu (chưa có bản nào) là đồng bộ, gộp các request cùng URL; lỗi thì nhớ ngắn hạn
+ * để không request nào phải chờ origin chết liên tục (mục hết backoff được dọn khi truy cập
+ * và định kỳ qua {@link #sweep}).
+ */
+@Service
+public class RemoteImageCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteImageCache.class);
+
+    private static final String META_ETAG = "etag";
+    private static final String META_LAST_MODIFIED = "lastModified";
+    private static final String META_FETCHED_AT = "fetchedAt";
+
+    public record Stats(long hits, long staleHits, long fetches, long revalidated, long failures, long tooLarge,
+            int failing, int refreshQueue, long diskBytes, long diskMaxBytes) {
+    }
+
+    private final Path dir;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    private final long downloadTimeoutMs;
+    private final long maxBytes;
+    private final long ttlMs;
+    private final long failureBackoffMs;
+    private final long diskMaxBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final Object diskEvictLock = new Object();
+
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    // URL vừa tải lỗi -> thời điểm được thử lại
+    private final ConcurrentHashMap<String, Long> failedUntil = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor refresher;
+    // Cắt kết nối khi lượt tải quá hạn chót (read-timeout chỉ áp cho từng lần đọc)
+    private final ScheduledThreadPoolExecutor watchdog;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder tooLarge = new LongAdder();
+
+    public RemoteImageCache(
+            @Value("${app.upload.base-dir:uploads}") String baseDir,
+            @Value("${app.images.remote.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${app.images.remote.read-timeout:5s}") Duration readTimeout,
+            @Value("${app.images.remote.download-timeout:15s}") Duration downloadTimeout,
+            @Value("${app.images.remote.max-size:10MB}") DataSize maxSize,
+            @Value("${app.images.remote.ttl:1d}") Duration ttl,
+            @Value("${app.images.remote.failure-backoff:1m}") Duration failureBackoff,
+            @Value("${app.images.remote.disk.max-size:1GB}") DataSize diskMaxSize) throws IOException {
+        this.dir = Paths.get(baseDir).toAbsolutePath().normalize().resolve("images").resolve("remote");
+        Files.createDirectories(dir);
+        this.connectTimeoutMs = (int) connectTimeout.toMillis();
+        this.readTimeoutMs = (int) readTimeout.toMillis();
+        this.downloadTimeoutMs = downloadTimeout.toMillis();
+        this.maxBytes = maxSize.toBytes();
+        this.ttlMs = ttl.toMillis();
+        this.failureBackoffMs = failureBackoff.toMillis();
+        this.diskMaxBytes = diskMaxSize.toBytes();
+        try (Stream<Path> files = Files.list(dir)) {
+            diskBytes.set(files.mapToLong(f -> f.toFile().length()).sum());
+        }
+        this.refresher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(100), r -> {
+            Thread t = new Thread(r, "remote-image-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        this.watchdog = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "remote-image-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        this.watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    public static boolean isRemote(String location) {
+        String lower = location.toLowerCase();
+        return lower.startsWith("http://") || lower.startsWith("https://");
+    }
+
+    /** File ảnh trên đĩa cho {@code url}; empty nếu chưa tải được. */
+    public Optional<Path> get(String url) {
+        String name = sha256(url);
+        Path data = dir.resolve(name + ".bin");
+        Path meta = dir.resolve(name + ".meta");
+
+        if (Files.isRegularFile(data)) {
+            Properties p = readMeta(meta);
+            if (System.currentTimeMillis() - fetchedAt(p) < ttlMs) {
+                hits.increment();
+            } else {
+                staleHits.increment();
+                scheduleRefresh(url, data, meta, p);
+            }
+            return Optional.of(data);
+        }
+
+        Long until = failedUntil.get(url);
+        if (until != null) {
+            if (until > System.currentTimeMillis())
+                return Optional.empty();
+            failedUntil.remove(url, until);
+        }
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(url, mine);
+        if (running != null)
+            return Optional.ofNullable(running.join());
+        try {
+            Path result = fetch(url, data, meta, new Properties()) ? data : null;
+            mine.complete(result);
+            return Optional.ofNullable(result);
+        } catch (RuntimeException e) {
+            mine.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(url, mine);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), staleHits.sum(), fetches.sum(), revalidated.sum(), failures.sum(),
+                tooLarge.sum(), failedUntil.size(), refresher.getQueue().size(), diskBytes.get(), diskMaxBytes);
+    }
+
+    /** Dọn định kỳ: bỏ URL đã hết backoff, thư mục vượt disk.max-size thì xoá bớt ảnh cũ. */
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        failedUntil.values().removeIf(until -> until <= now);
+        if (diskBytes.get() > diskMaxBytes)
+            evictDisk();
+    }
+
+    // ===== Tải =====
+
+    private void scheduleRefresh(String url, Path data, Path meta, Properties p) {
+        if (!refreshing.add(url))
+            return;
+        try {
+            refresher.execute(() -> {
+                try {
+                    fetch(url, data, meta, p);
+                } finally {
+                    refreshing.remove(url);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(url);
+        }
+    }
+
+    /**
+     * GET (có điều kiện nếu {@code p} đã có ETag/Last-Modified). true = trên đĩa có bản dùng được.
+     * Mọi lỗi đều nuốt ở đây: ghi nhận + backoff, bản cũ (nếu có) giữ nguyên.
+     */
+    private boolean fetch(String url, Path data, Path meta, Properties p) {
+        HttpURLConnection conn = null;
+        ScheduledFuture<?> deadline = null;
+        try {
+            conn = (HttpURLConnection) URI.create(url).toURL().openConnection();
+            HttpURLConnection c = conn;
+            // disconnect() từ luồng khác đóng socket -> read đang chặn ném lỗi ngay
+            deadline = watchdog.schedule(c::disconnect, downloadTimeoutMs, TimeUnit.MILLISECONDS);
+            conn.setConnectTimeout(connectTimeoutMs);
+            conn.setReadTimeout(readTimeoutMs); // áp cho từng lần đọc, origin "nhỏ giọt" cũng bị cắt
+            conn.setInstanceFollowRedirects(true);
+            conn.setRequestProperty(HttpHeaders.ACCEPT, "image/*");
+            if (p.getProperty(META_ETAG) != null)
+                conn.setRequestProperty(HttpHeaders.IF_NONE_MATCH, p.getProperty(META_ETAG));
+            if (p.getProperty(META_LAST_MODIFIED) != null)
+                conn.setRequestProperty(HttpHeaders.IF_MODIFIED_SINCE, p.getProperty(META_LAST_MODIFIED));
+
+            int status = conn.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && Files.isRegularFile(data)) {
+                p.setProperty(META_FETCHED_AT, String.valueOf(System.currentTimeMillis()));
+                writeMeta(meta, p);
+                revalidated.increment();
+                return true;
+            }
+            if (status != HttpURLConnection.HTTP_OK)
+                throw new IOException("HTTP " + status);
+            long declared = conn.getContentLengthLong();
+            if (declared > maxBytes) {
+                tooLarge.increment();
+                throw new IOException("Ảnh quá lớn: " + declared + " bytes");
+            }
+
+            Path temp = Files.createTempFile(dir, "dl-", ".part");
+            try {
+                try (InputStream in = conn.getInputStream(); OutputStream out = Files.newOutputStream(temp)) {
+                    byte[] buf = new byte[16 * 1024];
+                    long total = 0;
+                    int n;
+                    while ((n = in.read(buf)) > 0) {
+                        total += n;
+                        if (total > maxBytes) { // không có / khai sai Content-Length
+                            tooLarge.increment();
+                            throw new IOException("Ảnh quá lớn (> " + maxBytes + " bytes)");
+                        }
+                        out.write(buf, 0, n);
+                    }
+                }
+                // Không cache trang lỗi HTML / nội dung không phải ảnh
+                try (InputStream head = Files.newInputStream(temp)) {
+                    if (ImageTypes.detectOrNull(head.readNBytes(ImageTypes.HEAD_BYTES)) == null)
+                        throw new IOException("Không phải ảnh");
+                }
+                long size = Files.size(temp);
+                long replaced = Files.isRegularFile(data) ? Files.size(data) : 0;
+                Files.move(temp, data, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                if (diskBytes.addAndGet(size - replaced) > diskMaxBytes)
+                    evictDisk();
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            Properties fresh = new Properties();
+            putIfNotNull(fresh, META_ETAG, conn.getHeaderField(HttpHeaders.ETAG));
+            putIfNotNull(fresh, META_LAST_MODIFIED, conn.getHeaderField(HttpHeaders.LAST_MODIFIED));
+            fresh.setProperty(META_FETCHED_AT, String.valueOf(System.currentTimeMillis()));
+            writeMeta(meta, fresh);
+            failedUntil.remove(url);
+            fetches.increment();
+            return true;
+        } catch (Exception e) {
+            failures.increment();
+            failedUntil.put(url, System.currentTimeMillis() + failureBackoffMs);
+            log.debug("[Image] Tải ảnh ngoài {} lỗi: {}", url, e.getMessage());
+            return Files.isRegularFile(data);
+        } finally {
+            if (deadline != null)
+                deadline.cancel(false);
+            if (conn != null)
+                conn.disconnect();
+        }
+    }
+
+    // ===== Đĩa =====
+
+    /**
+     * Xoá cặp .bin/.meta lâu nhất chưa tải / xác nhận lại (theo mtime của .meta) tới khi tổng
+     * còn dưới ~90% disk.max-size. Bản vừa tải cũng có thể bị xoá nếu 1 ảnh chiếm gần hết
+     * hạn mức – lần sau tải lại, không lỗi.
+     */
+    private void evictDisk() {
+        synchronized (diskEvictLock) {
+            record DiskEntry(Path data, Path meta, long size, long touched) {
+            }
+            List<DiskEntry> entries = new ArrayList<>();
+            long total = 0;
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path f : (Iterable<Path>) files::iterator) {
+                    String name = f.getFileName().toString();
+                    try {
+                        total += Files.size(f);
+                        if (!name.endsWith(".bin"))
+                            continue;
+                        Path meta = dir.resolve(name.substring(0, name.length() - 4) + ".meta");
+                        long touched = Files.isRegularFile(meta) ? Files.getLastModifiedTime(meta).toMillis() : 0;
+                        entries.add(new DiskEntry(f, meta, Files.size(f), touched));
+                    } catch (IOException ignore) {
+                        // file vừa bị xoá / thay
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("[Image] Không quét được thư mục ảnh ngoài: {}", e.getMessage());
+                return;
+            }
+            entries.sort(Comparator.comparingLong(DiskEntry::touched));
+            long target = diskMaxBytes - diskMaxBytes / 10;
+            int removed = 0;
+            for (DiskEntry e : entries) {
+                if (total <= target)
+                    break;
+                try {
+                    long metaSize = Files.isRegularFile(e.meta()) ? Files.size(e.meta()) : 0;
+                    if (Files.deleteIfExists(e.data())) {
+                        total -= e.size();
+                        removed++;
+                    }
+                    if (Files.deleteIfExists(e.meta()))
+                        total -= metaSize;
+                } catch (IOException ignore) {
+                    // để lần dọn sau
+                }
+            }
+            diskBytes.set(total);
+            if (removed > 0)
+                log.debug("[Image] Dọn ảnh ngoài trên đĩa: xoá {} ảnh, còn {} byte", removed, total);
+        }
+    }
+
+    // ===== Meta =====
+
+    private static Properties readMeta(Path meta) {
+        Properties p = new Properties();
+        if (Files.isRegularFile(meta)) {
+            try (Reader r = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+                p.load(r);
+            } catch (IOException | IllegalArgumentException ignore) {
+                // meta hỏng -> coi như hết hạn, lần làm mới sau ghi lại
+            }
+        }
+        return p;
+    }
+
+    private void writeMeta(Path meta, Properties p) throws IOException {
+        Path temp = Files.createTempFile(dir, "meta-", ".part");
+        try {
+            try (Writer w = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                p.store(w, null);
+            }
+            Files.move(temp, meta, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long fetchedAt(Properties p) {
+        try {
+            return Long.parseLong(p.getProperty(META_FETCHED_AT, "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void putIfNotNull(Properties p, String key, String value) {
+        if (value != null && !value.isBlank())
+            p.setProperty(key, value);
+    }
+
+    private static String sha256(String s) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.ductieng.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.ductieng.util.ImageTypes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Cache ảnh đã resize cho /laptop/{id}/image/{index} khi ảnh không nằm trong ImageStore
+ * (URL cũ / ảnh ngoài), nơi chưa có biến thể sinh sẵn.
+ * <p>
+ * LRU giới hạn theo tổng số byte (không theo số mục). Single-flight: nhiều request cùng
+ * lúc cho 1 cỡ chưa có chỉ chạy Thumbnailator 1 lần, các request còn lại chờ kết quả đó.
+ * Tầng đĩa tuỳ chọn: mục bị đẩy khỏi RAM được ghi ra {base}/images/resize-cache, lần sau
+ * đọc lại từ đĩa thay vì resize; mục trên đĩa quá max-age coi như hết hạn. Đĩa đầy thì
+ * xoá mục hết hạn rồi mục cũ nhất (theo thời điểm ghi) xuống còn ~90% max-size.
+ */
+@Service
+public class ResizedImageCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ResizedImageCache.class);
+
+    /** Khoá: ảnh nguồn (id, slot, URL nguồn) + chiều rộng đã làm tròn về cỡ chuẩn. */
+    public record Key(Long id, int index, String source, int width) {
+
+        String fileName() {
+            try {
+                byte[] h = MessageDigest.getInstance("SHA-256")
+                        .digest(toString().getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(h);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    public record Resized(byte[] data, String contentType) {
+    }
+
+    public record Stats(long hits, long diskHits, long misses, long coalesced, long evictions, long spills,
+            long bytes, long maxBytes, int size, long diskBytes, boolean diskEnabled) {
+    }
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<Key, Resized> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private final ConcurrentHashMap<Key, CompletableFuture<Resized>> inFlight = new ConcurrentHashMap<>();
+
+    private final Path diskDir; // null = tắt tầng đĩa
+    private final long diskMaxBytes;
+    private final long diskMaxAgeMs;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final Object diskEvictLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+
+    public ResizedImageCache(
+            @Value("${app.images.resize-cache.max-size:64MB}") DataSize maxSize,
+            @Value("${app.images.resize-cache.disk.enabled:false}") boolean diskEnabled,
+            @Value("${app.images.resize-cache.disk.max-size:512MB}") DataSize diskMaxSize,
+            @Value("${app.images.resize-cache.disk.max-age:7d}") Duration diskMaxAge,
+            @Value("${app.upload.base-dir:uploads}") String baseDir) {
+        this.maxBytes = Math.max(maxSize.toBytes(), 0);
+        // 1 ảnh không được chiếm quá 1/8 cache, tránh đẩy hết các ảnh nhỏ
+        this.maxEntryBytes = this.maxBytes / 8;
+        this.diskMaxBytes = diskMaxSize.toBytes();
+        this.diskMaxAgeMs = diskMaxAge.toMillis();
+        this.diskDir = diskEnabled ? initDisk(Paths.get(baseDir).toAbsolutePath().normalize()
+                .resolve("images").resolve("resize-cache")) : null;
+    }
+
+    /**
+     * Ảnh đã resize theo {@code key}; chưa có thì gọi {@code loader} (tải + resize).
+     * loader trả null (không tải được nguồn) -> trả null, không cache.
+     */
+    public Resized get(Key key, Supplier<Resized> loader) {
+        synchronized (this) {
+            Resized r = entries.get(key);
+            if (r != null) {
+                hits.increment();
+                return r;
+            }
+        }
+
+        CompletableFuture<Resized> mine = new CompletableFuture<>();
+        CompletableFuture<Resized> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            // Request khác đang resize đúng ảnh này -> chờ kết quả của nó
+            coalesced.increment();
+            return running.join();
+        }
+        try {
+            // Request trước có thể vừa put + nhả inFlight giữa lần kiểm tra RAM ở trên và putIfAbsent
+            synchronized (this) {
+                Resized cached = entries.get(key);
+                if (cached != null) {
+                    hits.increment();
+                    mine.complete(cached);
+                    return cached;
+                }
+            }
+            Resized r = readDisk(key);
+            if (r != null) {
+                diskHits.increment();
+            } else {
+                misses.increment();
+                r = loader.get();
+            }
+            if (r != null)
+                put(key, r);
+            mine.complete(r);
+            return r;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), diskHits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), spills.sum(),
+                bytes, maxBytes, entries.size(), diskBytes.get(), diskDir != null);
+    }
+
+    // ===== RAM =====
+
+    private void put(Key key, Resized r) {
+        long size = r.data().length;
+        if (size > maxEntryBytes)
+            return;
+        List<Map.Entry<Key, Resized>> evicted = new ArrayList<>();
+        synchronized (this) {
+            Resized old = entries.put(key, r);
+            if (old != null)
+                bytes -= old.data().length;
+            bytes += size;
+            Iterator<Map.Entry<Key, Resized>> it = entries.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<Key, Resized> eldest = it.next();
+                bytes -= eldest.getValue().data().length;
+                evicted.add(Map.entry(eldest.getKey(), eldest.getValue()));
+                it.remove();
+                evictions.increment();
+            }
+        }
+        // Ghi đĩa ngoài khoá
+        for (Map.Entry<Key, Resized> e : evicted)
+            spill(e.getKey(), e.getValue());
+    }
+
+    // ===== Đĩa =====
+
+    private Path initDisk(Path dir) {
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                diskBytes.set(files.mapToLong(p -> p.toFile().length()).sum());
+            }
+            return dir;
+        } catch (IOException e) {
+            log.warn("[Image] Tắt tầng đĩa của resize cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Resized readDisk(Key key) {
+        if (diskDir == null)
+            return null;
+        Path p = diskDir.resolve(key.fileName());
+        try {
+            if (!Files.isRegularFile(p))
+                return null;
+            if (diskMaxAgeMs > 0
+                    && System.currentTimeMillis() - Files.getLastModifiedTime(p).toMillis() > diskMaxAgeMs) {
+                long len = Files.size(p);
+                if (Files.deleteIfExists(p))
+                    diskBytes.addAndGet(-len);
+                return null;
+            }
+            byte[] data = Files.readAllBytes(p);
+            return new Resized(data, ImageTypes.detect(data));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Ghi mục bị đẩy khỏi RAM ra đĩa; đĩa đầy (vượt max-size) thì dọn bớt mục cũ trước. */
+    private void spill(Key key, Resized r) {
+        if (diskDir == null || r.data().length > diskMaxBytes)
+            return;
+        if (diskBytes.get() + r.data().length > diskMaxBytes)
+            evictDisk(r.data().length);
+        Path target = diskDir.resolve(key.fileName());
+        try {
+            if (Files.exists(target))
+                return;
+            Path temp = Files.createTempFile(diskDir, "rs-", ".part");
+            try {
+                Files.write(temp, r.data());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                diskBytes.addAndGet(r.data().length);
+                spills.increment();
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.debug("[Image] Không ghi được resize cache ra đĩa: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Xoá mục hết hạn, rồi mục ghi lâu nhất tới khi còn chỗ cho {@code needed} byte dưới ~90%
+     * max-size (chừa khoảng trống để không phải quét thư mục ở mỗi lần ghi). 1 luồng dọn 1 lúc;
+     * luồng chờ sau đó thấy đã đủ chỗ thì không quét lại.
+     */
+    private void evictDisk(long needed) {
+        synchronized (diskEvictLock) {
+            if (diskBytes.get() + needed <= diskMaxBytes)
+                return; // luồng trước vừa dọn xong
+            record DiskEntry(Path path, long size, long modified) {
+            }
+            List<DiskEntry> files = new ArrayList<>();
+            try (Stream<Path> list = Files.list(diskDir)) {
+                list.filter(p -> !p.getFileName().toString().endsWith(".part")).forEach(p -> {
+                    try {
+                        files.add(new DiskEntry(p, Files.size(p), Files.getLastModifiedTime(p).toMillis()));
+                    } catch (IOException ignore) {
+                        // file vừa bị xoá
+                    }
+                });
+            } catch (IOException e) {
+                log.debug("[Image] Không quét được resize cache trên đĩa: {}", e.getMessage());
+                return;
+            }
+            files.sort(Comparator.comparingLong(DiskEntry::modified));
+            long total = files.stream().mapToLong(DiskEntry::size).sum();
+            long target = diskMaxBytes - diskMaxBytes / 10 - needed;
+            long expiredBefore = diskMaxAgeMs > 0 ? System.currentTimeMillis() - diskMaxAgeMs : Long.MIN_VALUE;
+            int removed = 0;
+            for (DiskEntry f : files) {
+                if (total <= target && f.modified() >= expiredBefore)
+                    break;
+                try {
+                    if (Files.deleteIfExists(f.path())) {
+                        total -= f.size();
+                        removed++;
+                    }
+                } catch (IOException ignore) {
+                    // để lần dọn sau
+                }
+            }
+            diskBytes.set(total); // đồng bộ lại với đĩa
+            log.debug("[Image] Dọn resize cache trên đĩa: xoá {} file, còn {} byte", removed, total);
+        }
+    }
+}
@@ -17,7 +17,6 @@ import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -34,6 +33,9 @@ public class ReturnService {
     @Autowired
     private LaptopService laptopService;
 
+    @Autowired
+    private UploadService uploadService;
+
     @Value("${app.return.window-days:14}")
     private int returnWindowDays;
 
@@ -182,17 +184,11 @@ public class ReturnService {
             if (file.isEmpty())
                 continue;
 
-            String originalFilename = file.getOriginalFilename();
-            String extension = "";
-            if (originalFilename != null && originalFilename.contains(".")) {
-                extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            }
-
-            String filename = "return_" + orderId + "_" + System.currentTimeMillis() + "_" + index + extension;
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Kiểm tra cỡ + định dạng ảnh; đuôi file theo định dạng thật, không theo tên client gửi
+            String baseName = "return_" + orderId + "_" + System.currentTimeMillis() + "_" + index;
+            Path filePath = uploadService.store(file, UploadService.Kind.RETURN_PHOTO, uploadPath, baseName);
 
-            paths.add(returnUploadDir + "/" + filename);
+            paths.add(returnUploadDir + "/" + filePath.getFileName());
             index++;
         }
 
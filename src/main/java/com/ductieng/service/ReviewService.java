@@ -4,7 +4,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import com.ductieng.dto.CursorPage;
 import com.ductieng.dto.RatingAgg;
+import com.ductieng.dto.ReviewView;
 import com.ductieng.model.Laptop;
 import com.ductieng.model.Review;
 import com.ductieng.model.User;
@@ -13,10 +15,25 @@ public interface ReviewService {
 
     Review save(Review review);
 
+    /**
+     * Xoá review theo id.
+     *
+     * @return false nếu review không tồn tại
+     */
+    boolean deleteById(Long id);
+
     List<Review> findByLaptop(Laptop laptop);
 
     double averageRating(Laptop laptop);
 
+    /**
+     * Review của 1 laptop, mới nhất trước, phân trang theo con trỏ (keyset).
+     *
+     * @param cursor nextCursor của lần gọi trước, null = trang đầu
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
+     */
+    CursorPage<ReviewView> scroll(Long laptopId, String cursor, int size);
+
     /**
      * Tạo review mới cho 1 laptop bởi 1 user, tự động clamp rating [1..5] và set
      * createdAt.
@@ -26,6 +43,13 @@ public interface ReviewService {
     /** Lấy trung bình + số lượng review theo lô laptopIds, trả về Map theo id. */
     Map<Long, RatingAgg> ratingAgg(Collection<Long> laptopIds);
 
+    /**
+     * Đối soát cột tổng hợp rating trên laptops với bảng reviews, sửa các dòng bị lệch.
+     *
+     * @return số laptop đã sửa
+     */
+    int reconcileRatings();
+
     /**
      * Kiểm tra xem user đã mua laptop này với đơn hàng trạng thái DELIVERED hay
      * chưa.
@@ -33,4 +57,10 @@ public interface ReviewService {
      * @return true nếu user đã mua và đơn hàng đã giao, false nếu chưa
      */
     boolean hasUserPurchasedProduct(User user, Laptop laptop);
+
+    /**
+     * Như hasUserPurchasedProduct nhưng chỉ cần username + id laptop
+     * (trang chi tiết không nạp entity User / Laptop).
+     */
+    boolean canReview(String username, Long laptopId);
 }
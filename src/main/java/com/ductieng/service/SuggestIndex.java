@@ -0,0 +1,201 @@
+package com.ductieng.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ductieng.event.CatalogChangedEvent;
+import com.ductieng.repository.LaptopRepository;
+import com.ductieng.util.TextFold;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Gợi ý tìm kiếm khi gõ (typeahead) cho ô tìm kiếm trên header.
+ * <p>
+ * Toàn bộ khoá (tên SP, hãng, CPU – đã bỏ dấu, viết thường) nằm trong 1 mảng đã sắp xếp;
+ * tra tiền tố = 1 lần binary search + quét đoạn liền kề. Mỗi tên SP được index thêm từ
+ * vị trí các từ phía sau ("zenbook" vẫn ra "Asus Zenbook 14"), có giới hạn số khoá
+ * để bộ nhớ không phình theo độ dài tên. Snapshot bất biến, dựng lại khi catalog đổi.
+ */
+@Service
+public class SuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestIndex.class);
+
+    public static final String TYPE_PRODUCT = "product";
+    public static final String TYPE_BRAND = "brand";
+    public static final String TYPE_CPU = "cpu";
+
+    private static final int MAX_WORD_STARTS = 6; // số vị trí từ được index cho mỗi tên
+    private static final int MAX_TEXT = 120;
+    private static final int MAX_SCAN = 2_000; // số khoá tối đa quét cho 1 truy vấn
+
+    private final LaptopRepository laptopRepo;
+
+    @Value("${app.search.suggest.max-keys:100000}")
+    private int maxKeys;
+
+    // laptopId -> {name, brand, cpuModel}
+    private final Map<Long, String[]> sources = new HashMap<>();
+    private volatile Snapshot snapshot;
+
+    public SuggestIndex(LaptopRepository laptopRepo) {
+        this.laptopRepo = laptopRepo;
+    }
+
+    public record Suggestion(String text, String type, String url) {
+    }
+
+    private record Entry(String text, String type, String url, int weight) {
+    }
+
+    // ===== Query =====
+
+    public List<Suggestion> suggest(String query, int limit) {
+        String p = String.join(" ", TextFold.tokens(query));
+        if (p.isEmpty())
+            return List.of();
+        Snapshot s = snapshot();
+
+        Map<Integer, Integer> best = new HashMap<>();
+        int i = lowerBound(s.keys, p);
+        for (int scanned = 0; i < s.keys.length && scanned < MAX_SCAN && s.keys[i].startsWith(p); i++, scanned++) {
+            Entry e = s.entries[s.entryOf[i]];
+            // Khớp ngay đầu chuỗi được ưu tiên hơn khớp giữa tên
+            int score = e.weight() * 2 + (s.atStart[i] ? 1 : 0);
+            best.merge(s.entryOf[i], score, Math::max);
+        }
+
+        return best.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(en -> s.entries[en.getKey()].text()))
+                .limit(Math.max(limit, 1))
+                .map(en -> {
+                    Entry e = s.entries[en.getKey()];
+                    return new Suggestion(e.text(), e.type(), e.url());
+                })
+                .toList();
+    }
+
+    private static int lowerBound(String[] keys, String p) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(p) < 0)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    // ===== Build / update =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        sources.clear();
+        for (Object[] r : laptopRepo.findSuggestSources())
+            sources.put((Long) r[0], new String[] { (String) r[1], (String) r[2], (String) r[3] });
+        snapshot = new Snapshot(sources.entrySet(), maxKeys);
+        log.info("[Suggest] {} khoá gợi ý cho {} laptop", snapshot.keys.length, sources.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent e) {
+        if (e.laptopId() == null || snapshot == null)
+            return;
+        sources.remove(e.laptopId());
+        for (Object[] r : laptopRepo.findSuggestSource(e.laptopId()))
+            sources.put((Long) r[0], new String[] { (String) r[1], (String) r[2], (String) r[3] });
+        snapshot = new Snapshot(sources.entrySet(), maxKeys);
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null)
+                    rebuild();
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    // ===== Mảng khoá đã sắp xếp =====
+
+    private static final class Snapshot {
+        final String[] keys;
+        final int[] entryOf;
+        final boolean[] atStart;
+        final Entry[] entries;
+
+        Snapshot(Collection<Map.Entry<Long, String[]>> rows, int maxKeys) {
+            List<Entry> entries = new ArrayList<>();
+            List<Object[]> keyed = new ArrayList<>(); // {key, entryIdx, atStart}
+
+            // Hãng & CPU: gộp trùng, trọng số theo số SP
+            Map<String, Integer> brandCount = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            Map<String, Integer> cpuCount = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Map.Entry<Long, String[]> r : rows) {
+                String[] v = r.getValue();
+                if (v[1] != null && !v[1].isBlank())
+                    brandCount.merge(v[1].trim(), 1, Integer::sum);
+                if (v[2] != null && !v[2].isBlank())
+                    cpuCount.merge(v[2].trim(), 1, Integer::sum);
+            }
+            brandCount.forEach((b, n) -> addKeys(keyed, entries,
+                    new Entry(clip(b), TYPE_BRAND, "/laptops?brandFilter=" + enc(b), 10 + n), 1, maxKeys));
+            cpuCount.forEach((c, n) -> addKeys(keyed, entries,
+                    new Entry(clip(c), TYPE_CPU, "/laptops?brand=" + enc(c), 1 + n), MAX_WORD_STARTS, maxKeys));
+
+            // Tên SP: id tăng dần để kết quả ổn định
+            rows.stream()
+                    .filter(r -> r.getValue()[0] != null && !r.getValue()[0].isBlank())
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(r -> addKeys(keyed, entries,
+                            new Entry(clip(r.getValue()[0].trim()), TYPE_PRODUCT, "/product/" + r.getKey(), 3),
+                            MAX_WORD_STARTS, maxKeys));
+
+            keyed.sort(Comparator.comparing(k -> (String) k[0]));
+            int n = keyed.size();
+            keys = new String[n];
+            entryOf = new int[n];
+            atStart = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                Object[] k = keyed.get(i);
+                keys[i] = (String) k[0];
+                entryOf[i] = (Integer) k[1];
+                atStart[i] = (Boolean) k[2];
+            }
+            this.entries = entries.toArray(new Entry[0]);
+        }
+
+        /** Khoá = chuỗi đã bỏ dấu bắt đầu từ mỗi từ (tối đa maxStarts vị trí). */
+        private static void addKeys(List<Object[]> keyed, List<Entry> entries, Entry e, int maxStarts, int maxKeys) {
+            List<String> words = TextFold.tokens(e.text());
+            if (words.isEmpty() || keyed.size() >= maxKeys)
+                return;
+            int idx = entries.size();
+            entries.add(e);
+            for (int w = 0; w < Math.min(words.size(), maxStarts) && keyed.size() < maxKeys; w++) {
+                keyed.add(new Object[] { String.join(" ", words.subList(w, words.size())), idx, w == 0 });
+            }
+        }
+
+        private static String clip(String s) {
+            return s.length() <= MAX_TEXT ? s : s.substring(0, MAX_TEXT);
+        }
+
+        private static String enc(String s) {
+            return URLEncoder.encode(s, StandardCharsets.UTF_8);
+        }
+    }
+}
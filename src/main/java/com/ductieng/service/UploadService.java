@@ -0,0 +1,208 @@
+package com.ductieng.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.ductieng.exception.UploadRejectedException;
+import com.ductieng.util.ImageTypes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Điểm vào chung cho mọi file upload (ảnh SP, avatar, ảnh trả hàng, ảnh thông báo).
+ * <p>
+ * Multipart do Tomcat ghi ra đĩa khi part vượt ngưỡng
+ * {@code spring.servlet.multipart.file-size-threshold} (mặc định 64KB, xem defaults.properties),
+ * nên dưới ngưỡng đó mới nằm trên heap. Service này:
+ * <ol>
+ * <li>chặn theo kích thước (đã biết sau khi parse multipart) và content-type khai báo
+ * trước khi mở luồng dữ liệu;</li>
+ * <li>đọc {@value ImageTypes#HEAD_BYTES} byte đầu để xác nhận định dạng thật (magic bytes);</li>
+ * <li>chép phần còn lại bằng FileChannel.transferFrom ra tệp tạm rồi move nguyên tử.</li>
+ * </ol>
+ * Số liệu (số file, byte, bị từ chối, thông lượng) theo từng loại upload.
+ */
+@Service
+public class UploadService {
+
+    /** Loại upload: định dạng cho phép + giới hạn kích thước riêng. */
+    public enum Kind {
+        PRODUCT_IMAGE(Set.of("image/jpeg", "image/png", "image/gif", "image/webp")),
+        AVATAR(Set.of("image/jpeg", "image/png")),
+        RETURN_PHOTO(Set.of("image/jpeg", "image/png", "image/gif", "image/webp")),
+        ANNOUNCEMENT(Set.of("image/jpeg", "image/png", "image/gif", "image/webp"));
+
+        final Set<String> types;
+
+        Kind(Set<String> types) {
+            this.types = types;
+        }
+    }
+
+    /** Đọc luồng đã kiểm tra (luồng đóng sau khi hàm trả về). */
+    @FunctionalInterface
+    public interface StreamConsumer<T> {
+        T accept(InputStream in) throws IOException;
+    }
+
+    public record Stats(long files, long bytes, long rejected, double mbPerSecond, long maxBytes) {
+    }
+
+    private final Map<Kind, Long> maxBytes = new EnumMap<>(Kind.class);
+    private final Map<Kind, Metrics> metrics = new EnumMap<>(Kind.class);
+
+    public UploadService(
+            @Value("${app.upload.max-size.product-image:10MB}") DataSize productImage,
+            @Value("${app.upload.max-size.avatar:2MB}") DataSize avatar,
+            @Value("${app.upload.max-size.return-photo:5MB}") DataSize returnPhoto,
+            @Value("${app.upload.max-size.announcement:5MB}") DataSize announcement) {
+        maxBytes.put(Kind.PRODUCT_IMAGE, productImage.toBytes());
+        maxBytes.put(Kind.AVATAR, avatar.toBytes());
+        maxBytes.put(Kind.RETURN_PHOTO, returnPhoto.toBytes());
+        maxBytes.put(Kind.ANNOUNCEMENT, announcement.toBytes());
+        for (Kind k : Kind.values())
+            metrics.put(k, new Metrics());
+    }
+
+    /**
+     * Lưu upload vào {@code dir}/{@code baseName}.{đuôi theo định dạng thật}, trả đường dẫn file.
+     * File trống -> null. Sai định dạng / quá cỡ -> UploadRejectedException.
+     */
+    public Path store(MultipartFile file, Kind kind, Path dir, String baseName) throws IOException {
+        if (file == null || file.isEmpty())
+            return null;
+        long start = System.nanoTime();
+        Metrics m = metrics.get(kind);
+        checkDeclared(file, kind, m);
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, ".up-", ".part");
+        try {
+            long size;
+            Path target;
+            try (ReadableByteChannel src = Channels.newChannel(file.getInputStream());
+                    FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer head = readHead(src);
+                String type = checkSniffed(head, kind, m);
+                target = dir.resolve(baseName + "." + extension(type));
+                out.write(head);
+                size = out.position();
+                long n;
+                while ((n = out.transferFrom(src, size, 1 << 20)) > 0)
+                    size += n;
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            m.record(size, System.nanoTime() - start);
+            return target;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Kiểm tra upload rồi giao luồng (đã gắn lại phần đầu) cho {@code consumer},
+     * vd ImageStore::put. File trống -> null.
+     */
+    public <T> T consume(MultipartFile file, Kind kind, StreamConsumer<T> consumer) throws IOException {
+        if (file == null || file.isEmpty())
+            return null;
+        long start = System.nanoTime();
+        Metrics m = metrics.get(kind);
+        checkDeclared(file, kind, m);
+        try (InputStream raw = file.getInputStream()) {
+            ReadableByteChannel src = Channels.newChannel(raw);
+            ByteBuffer head = readHead(src);
+            checkSniffed(head, kind, m);
+            InputStream in = new SequenceInputStream(
+                    new ByteArrayInputStream(head.array(), 0, head.limit()), Channels.newInputStream(src));
+            T result = consumer.accept(in);
+            m.record(file.getSize(), System.nanoTime() - start);
+            return result;
+        }
+    }
+
+    public Map<String, Stats> stats() {
+        Map<String, Stats> out = new LinkedHashMap<>();
+        for (Kind k : Kind.values())
+            out.put(k.name(), metrics.get(k).snapshot(maxBytes.get(k)));
+        return out;
+    }
+
+    // ===== Kiểm tra =====
+
+    /** Trước khi đọc nội dung: kích thước (Tomcat đã đếm) + content-type client khai báo. */
+    private void checkDeclared(MultipartFile file, Kind kind, Metrics m) {
+        long max = maxBytes.get(kind);
+        if (max > 0 && file.getSize() > max) {
+            m.rejected.increment();
+            throw new UploadRejectedException("File vượt quá " + DataSize.ofBytes(max).toMegabytes() + "MB");
+        }
+        String declared = file.getContentType();
+        if (declared != null && !declared.isBlank() && !declared.startsWith("image/")
+                && !declared.equals("application/octet-stream")) {
+            m.rejected.increment();
+            throw new UploadRejectedException("Chỉ chấp nhận file ảnh");
+        }
+    }
+
+    /** Định dạng thật theo magic bytes phải nằm trong danh sách cho phép. */
+    private static String checkSniffed(ByteBuffer head, Kind kind, Metrics m) {
+        String type = head.limit() < ImageTypes.HEAD_BYTES ? null : ImageTypes.detectOrNull(head.array());
+        if (type == null || !kind.types.contains(type)) {
+            m.rejected.increment();
+            throw new UploadRejectedException("Định dạng ảnh không được hỗ trợ");
+        }
+        return type;
+    }
+
+    private static ByteBuffer readHead(ReadableByteChannel src) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(ImageTypes.HEAD_BYTES);
+        while (head.hasRemaining() && src.read(head) >= 0) {
+            // đọc cho đủ HEAD_BYTES hoặc hết luồng
+        }
+        head.flip();
+        return head;
+    }
+
+    private static String extension(String contentType) {
+        return switch (contentType) {
+            case "image/png" -> "png";
+            case "image/gif" -> "gif";
+            case "image/webp" -> "webp";
+            default -> "jpg";
+        };
+    }
+
+    private static final class Metrics {
+        final LongAdder files = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+
+        void record(long size, long elapsedNanos) {
+            files.increment();
+            bytes.add(size);
+            nanos.add(elapsedNanos);
+        }
+
+        Stats snapshot(long max) {
+            long n = nanos.sum();
+            double mbps = n == 0 ? 0 : (bytes.sum() / 1_048_576.0) / (n / 1e9);
+            return new Stats(files.sum(), bytes.sum(), rejected.sum(), Math.round(mbps * 10) / 10.0, max);
+        }
+    }
+}
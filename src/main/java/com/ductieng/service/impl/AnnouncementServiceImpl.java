@@ -1,11 +1,14 @@
 package com.ductieng.service.impl;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ductieng.event.ReferenceDataChangedEvent;
 import com.ductieng.model.Announcement;
 import com.ductieng.repository.AnnouncementRepository;
 import com.ductieng.service.AnnouncementService;
+import com.ductieng.service.ReferenceDataCache;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,14 +17,20 @@ import java.util.Optional;
 public class AnnouncementServiceImpl implements AnnouncementService {
 
   private final AnnouncementRepository repo;
+  private final ReferenceDataCache referenceData;
+  private final ApplicationEventPublisher events;
 
-  public AnnouncementServiceImpl(AnnouncementRepository repo) {
+  public AnnouncementServiceImpl(AnnouncementRepository repo, ReferenceDataCache referenceData,
+      ApplicationEventPublisher events) {
     this.repo = repo;
+    this.referenceData = referenceData;
+    this.events = events;
   }
 
   @Override
   public Optional<Announcement> getActive() {
-    return repo.findFirstByEnabledTrueOrderByUpdatedAtDesc();
+    // Mọi trang đều gọi (GlobalModelAdvice) -> đọc cache, huỷ khi save/delete commit
+    return referenceData.activeAnnouncement();
   }
 
   @Override
@@ -40,12 +49,16 @@ public class AnnouncementServiceImpl implements AnnouncementService {
         repo.disableOthers(a.getId()); // cập nhật kích hoạt
       }
     }
-    return repo.save(a);
+    Announcement saved = repo.save(a);
+    events.publishEvent(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.ANNOUNCEMENT));
+    return saved;
   }
 
   @Override
+  @Transactional
   public void delete(Long id) {
     repo.deleteById(id);
+    events.publishEvent(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.ANNOUNCEMENT));
   }
 
   @Override
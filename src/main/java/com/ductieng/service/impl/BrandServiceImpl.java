@@ -1,10 +1,12 @@
 package com.ductieng.service.impl;
 
+import com.ductieng.event.ReferenceDataChangedEvent;
 import com.ductieng.model.Brand;
 import com.ductieng.repository.BrandRepository;
 import com.ductieng.repository.LaptopRepository;
 import com.ductieng.service.BrandService;
-import org.springframework.data.domain.Sort;
+import com.ductieng.service.ReferenceDataCache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,15 +19,21 @@ public class BrandServiceImpl implements BrandService {
 
     private final BrandRepository brandRepository;
     private final LaptopRepository laptopRepository;
+    private final ReferenceDataCache referenceData;
+    private final ApplicationEventPublisher events;
 
-    public BrandServiceImpl(BrandRepository brandRepository, LaptopRepository laptopRepository) {
+    public BrandServiceImpl(BrandRepository brandRepository, LaptopRepository laptopRepository,
+            ReferenceDataCache referenceData, ApplicationEventPublisher events) {
         this.brandRepository = brandRepository;
         this.laptopRepository = laptopRepository;
+        this.referenceData = referenceData;
+        this.events = events;
     }
 
     @Override
     public List<Brand> getAllBrands() {
-        return brandRepository.findAll(Sort.by(Sort.Direction.ASC, "name"));
+        // Đọc từ cache dữ liệu tham chiếu (huỷ khi save/delete bên dưới commit)
+        return referenceData.brands();
     }
 
     @Override
@@ -36,13 +44,16 @@ public class BrandServiceImpl implements BrandService {
     @Transactional
     @Override
     public Brand save(Brand brand) {
-        return brandRepository.save(brand);
+        Brand saved = brandRepository.save(brand);
+        events.publishEvent(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.BRANDS));
+        return saved;
     }
 
     @Transactional
     @Override
     public void deleteById(Long id) {
         brandRepository.deleteById(id);
+        events.publishEvent(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.BRANDS));
     }
 
     @Override
@@ -1,32 +1,100 @@
 package com.ductieng.service.impl;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.event.InteractiveAuthenticationSuccessEvent;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.context.annotation.SessionScope;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import com.ductieng.event.CartChangedEvent;
 import com.ductieng.model.CartItem;
+import com.ductieng.model.CartLine;
 import com.ductieng.model.Laptop;
+import com.ductieng.repository.CartLineRepository;
 import com.ductieng.repository.LaptopRepository;
 import com.ductieng.service.CartService;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Giỏ hàng lưu DB (bảng cart_lines): mỗi dòng chỉ (chủ giỏ, laptopId, số lượng).
+ * <p>
+ * User đã đăng nhập: chủ giỏ = username -> giữ qua restart / đổi máy chủ / đổi thiết bị.
+ * Khách: chủ giỏ = token ngẫu nhiên trong session; đăng nhập thì gộp vào giỏ của user.
+ * Giá và tồn kho luôn nạp mới bằng 1 lần findAllById khi xem giỏ / thanh toán.
+ * Session chỉ giữ CartState (token giỏ khách).
+ * <p>
+ * Badge: bộ đếm + phiên bản giỏ giữ trong RAM theo chủ giỏ (không theo session), nên mọi
+ * session / thiết bị của cùng 1 user thấy cùng 1 số; mỗi lần ghi giỏ xoá bộ đếm và tăng
+ * phiên bản (ngay lúc ghi và lần nữa sau commit). getItemCount() chỉ đọc DB khi bộ đếm
+ * trống; getCartVersion() không bao giờ đọc DB (dùng cho ETag). Node khác nhận
+ * CartChangedEvent qua ClusterSignals và xoá bộ đếm của chủ giỏ đó.
+ */
 @Service
-@SessionScope // Giữ giỏ hàng riêng cho mỗi session
 public class CartServiceImpl implements CartService {
 
+    static final String SESSION_ATTR = "CART_STATE";
+    private static final String USER_PREFIX = "u:";
+    private static final String GUEST_PREFIX = "g:";
+
     private final LaptopRepository laptopRepo;
-    private final List<CartItem> items = new ArrayList<>();
+    private final CartLineRepository lineRepo;
+    private final ApplicationEventPublisher events;
+    private final int maxOwners;
+
+    // Phiên bản tăng dần từ lúc khởi động (như ContentVersions): restart -> mọi ETag cũ đều lệch
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    // Phiên bản của chủ giỏ không có trong badges; tăng mỗi khi 1 chủ giỏ bị đẩy ra khỏi LRU
+    private volatile long versionFloor = clock.get();
+    private final Map<String, Badge> badges;
 
-    @Autowired
-    public CartServiceImpl(LaptopRepository laptopRepo) {
+    public CartServiceImpl(LaptopRepository laptopRepo, CartLineRepository lineRepo,
+            ApplicationEventPublisher events,
+            @Value("${app.cart.badge-cache-owners:20000}") int maxOwners) {
         this.laptopRepo = laptopRepo;
+        this.lineRepo = lineRepo;
+        this.events = events;
+        this.maxOwners = Math.max(maxOwners, 1);
+        this.badges = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Badge> eldest) {
+                if (size() <= CartServiceImpl.this.maxOwners)
+                    return false;
+                // Chủ giỏ bị đẩy ra sẽ nhận phiên bản mới hơn mọi giá trị đã phát -> không 304 nhầm
+                versionFloor = clock.incrementAndGet();
+                return true;
+            }
+        });
+    }
+
+    /** Trạng thái giỏ trong session (vài chục byte). */
+    static final class CartState implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String guestToken;
+    }
+
+    /** Phiên bản giỏ + tổng số món (null = chưa tính / vừa bị ghi). */
+    private record Badge(long version, Integer count) {
     }
 
     @Override
+    @Transactional
     public void add(Long laptopId) {
         Laptop lp = laptopRepo.findById(laptopId)
                 .orElseThrow(() -> new IllegalArgumentException("Laptop không tồn tại"));
@@ -37,64 +105,98 @@ public class CartServiceImpl implements CartService {
             throw new IllegalStateException("Sản phẩm '" + lp.getName() + "' đã hết hàng!");
         }
 
-        for (CartItem ci : items) {
-            if (ci.getLaptop().getId().equals(laptopId)) {
-                int newQty = ci.getQuantity() + 1;
-                if (newQty > availableQty) {
-                    throw new IllegalStateException(
-                            String.format("Không đủ hàng! Tồn kho: %d, trong giỏ: %d",
-                                    availableQty, ci.getQuantity()));
-                }
-                ci.increment(); // +1
-                return;
-            }
-        }
-        items.add(new CartItem(lp, 1));
+        addLine(laptopId, 1, availableQty);
     }
 
     @Override
+    @Transactional
     public void decrement(Long id) {
-        for (Iterator<CartItem> it = items.iterator(); it.hasNext();) {
-            CartItem ci = it.next();
-            if (ci.getLaptop().getId().equals(id)) {
-                ci.setQuantity(ci.getQuantity() - 1);
-                if (ci.getQuantity() <= 0) {
-                    it.remove();
-                }
-                return;
-            }
-        }
+        String owner = ownerForWrite();
+        // -1 ngay trong câu UPDATE; đang là 1 món thì xoá dòng
+        if (lineRepo.decrementAboveOne(owner, id, LocalDateTime.now()) == 0)
+            lineRepo.deleteSingle(owner, id);
+        touch(owner);
     }
 
     @Override
+    @Transactional
     public void remove(Long id) {
-        items.removeIf(ci -> ci.getLaptop().getId().equals(id));
+        String owner = ownerForWrite();
+        lineRepo.deleteLine(owner, id);
+        touch(owner);
     }
 
     @Override
     public List<CartItem> getItems() {
+        String owner = ownerForRead();
+        if (owner == null)
+            return new ArrayList<>();
+        List<CartLine> lines = lineRepo.findByOwnerKeyOrderByIdAsc(owner);
+        if (lines.isEmpty())
+            return new ArrayList<>();
+
+        // Giá + tồn kho mới nhất: 1 truy vấn cho cả giỏ
+        Map<Long, Laptop> byId = laptopRepo.findAllById(lines.stream().map(CartLine::getLaptopId).toList())
+                .stream()
+                .collect(Collectors.toMap(Laptop::getId, Function.identity()));
+
+        List<CartItem> items = new ArrayList<>(lines.size());
+        for (CartLine line : lines) {
+            Laptop lp = byId.get(line.getLaptopId());
+            if (lp != null) // SP đã bị xoá khỏi catalog -> bỏ qua
+                items.add(new CartItem(lp, line.getQuantity()));
+        }
         return items;
     }
 
     @Override
     public int getItemCount() {
-        return items.stream().mapToInt(CartItem::getQuantity).sum();
+        String owner = ownerForRead();
+        if (owner == null)
+            return 0;
+        Badge seen = badges.get(owner);
+        if (seen != null && seen.count() != null)
+            return seen.count();
+
+        long version = (seen != null) ? seen.version() : versionFloor;
+        int count = lineRepo.sumQuantity(owner);
+        // Chỉ lưu nếu không có lần ghi nào xen vào trong lúc đọc DB
+        badges.compute(owner, (k, cur) -> {
+            long curVersion = (cur != null) ? cur.version() : versionFloor;
+            return curVersion == version ? new Badge(version, count) : cur;
+        });
+        return count;
+    }
+
+    @Override
+    public long getCartVersion() {
+        String owner = ownerForRead();
+        if (owner == null)
+            return 0;
+        Badge b = badges.get(owner);
+        return (b != null) ? b.version() : versionFloor;
     }
 
     @Override
     public double getTotalPrice() {
-        return items.stream()
+        return getItems().stream()
                 .mapToDouble(ci -> ci.getLaptop().getPrice() * ci.getQuantity())
                 .sum();
     }
 
     @Override
+    @Transactional
     public void clear() {
-        items.clear();
+        String owner = ownerForRead();
+        if (owner != null) {
+            lineRepo.deleteByOwner(owner);
+            touch(owner);
+        }
     }
 
     // ✅ Implement thêm để hỗ trợ /product/{id}/add-to-cart
     @Override
+    @Transactional
     public void addToCart(Long id, int quantity, Authentication auth) {
         if (quantity < 1)
             quantity = 1;
@@ -108,25 +210,137 @@ public class CartServiceImpl implements CartService {
             throw new IllegalStateException("Sản phẩm '" + lp.getName() + "' đã hết hàng!");
         }
 
-        // Kiểm tra nếu đã có trong giỏ
-        for (CartItem ci : items) {
-            if (ci.getLaptop().getId().equals(id)) {
-                int newQty = ci.getQuantity() + quantity;
-                if (newQty > availableQty) {
-                    throw new IllegalStateException(
-                            String.format("Không đủ hàng! Tồn kho: %d, trong giỏ: %d, yêu cầu thêm: %d",
-                                    availableQty, ci.getQuantity(), quantity));
-                }
-                ci.setQuantity(newQty);
-                return;
+        addLine(id, quantity, availableQty);
+    }
+
+    @Override
+    @Transactional
+    public int purgeGuestCarts(Duration maxIdle) {
+        return lineRepo.deleteGuestLinesBefore(LocalDateTime.now().minus(maxIdle));
+    }
+
+    /** Vừa đăng nhập: gộp giỏ khách của session này vào giỏ của user. */
+    @EventListener
+    @Transactional
+    public void onLogin(InteractiveAuthenticationSuccessEvent e) {
+        HttpSession session = currentSession(false);
+        CartState st = state(session);
+        if (st == null || st.guestToken == null)
+            return;
+        mergeGuestCart(session, st, USER_PREFIX + e.getAuthentication().getName());
+    }
+
+    // ===== Helpers =====
+
+    /**
+     * Cộng {@code quantity} món vào giỏ, không vượt tồn kho. Cộng dồn bằng 1 câu UPDATE có điều kiện;
+     * chưa có dòng thì INSERT ... ON DUPLICATE KEY UPDATE nên 2 request "thêm" song song
+     * không lỗi trùng khoá cũng không mất lượt cộng.
+     */
+    private void addLine(Long laptopId, int quantity, int availableQty) {
+        String owner = ownerForWrite();
+        LocalDateTime now = LocalDateTime.now();
+        if (lineRepo.incrementWithin(owner, laptopId, quantity, availableQty, now) == 0) {
+            CartLine line = lineRepo.findByOwnerKeyAndLaptopId(owner, laptopId).orElse(null);
+            if (line != null) { // có dòng mà không cộng được -> vượt tồn kho
+                throw new IllegalStateException(quantity == 1
+                        ? String.format("Không đủ hàng! Tồn kho: %d, trong giỏ: %d",
+                                availableQty, line.getQuantity())
+                        : String.format("Không đủ hàng! Tồn kho: %d, trong giỏ: %d, yêu cầu thêm: %d",
+                                availableQty, line.getQuantity(), quantity));
+            }
+            if (quantity > availableQty) {
+                throw new IllegalStateException(
+                        String.format("Không đủ hàng! Tồn kho: %d, yêu cầu: %d", availableQty, quantity));
             }
+            lineRepo.upsert(owner, laptopId, quantity, availableQty, now);
         }
+        touch(owner);
+    }
+
+    /** Chủ giỏ hiện tại; null = khách chưa có giỏ (không tạo session chỉ để đọc). */
+    private String ownerForRead() {
+        String user = currentUsername();
+        if (user != null)
+            return USER_PREFIX + user;
+        CartState st = state(currentSession(false));
+        return (st == null || st.guestToken == null) ? null : GUEST_PREFIX + st.guestToken;
+    }
 
-        // Thêm mới vào giỏ
-        if (quantity > availableQty) {
-            throw new IllegalStateException(
-                    String.format("Không đủ hàng! Tồn kho: %d, yêu cầu: %d", availableQty, quantity));
+    /** Chủ giỏ để ghi: tạo token khách nếu cần, gộp giỏ khách còn sót sau đăng nhập. */
+    private String ownerForWrite() {
+        String user = currentUsername();
+        HttpSession session = currentSession(user == null);
+        if (user == null && session == null)
+            throw new IllegalStateException("Giỏ hàng khách cần HTTP session");
+        CartState st = state(session);
+        if (user != null) {
+            String owner = USER_PREFIX + user;
+            if (st != null && st.guestToken != null)
+                mergeGuestCart(session, st, owner);
+            return owner;
         }
-        items.add(new CartItem(lp, quantity));
+        if (st == null)
+            st = new CartState();
+        if (st.guestToken == null) {
+            st.guestToken = UUID.randomUUID().toString();
+            session.setAttribute(SESSION_ATTR, st);
+        }
+        return GUEST_PREFIX + st.guestToken;
+    }
+
+    private void mergeGuestCart(HttpSession session, CartState st, String userOwner) {
+        String guestOwner = GUEST_PREFIX + st.guestToken;
+        LocalDateTime now = LocalDateTime.now();
+        List<CartLine> guestLines = lineRepo.findByOwnerKeyOrderByIdAsc(guestOwner);
+        // Tồn kho hiện tại làm trần như đường "thêm vào giỏ": 1 truy vấn cho cả giỏ khách
+        Map<Long, Integer> stock = laptopRepo.findAllById(guestLines.stream().map(CartLine::getLaptopId).toList())
+                .stream()
+                .collect(Collectors.toMap(Laptop::getId, l -> l.getQuantity() != null ? l.getQuantity() : 0));
+        // Cộng dồn bằng upsert (user có thể đang thêm giỏ từ thiết bị khác cùng lúc)
+        for (CartLine g : guestLines) {
+            int max = stock.getOrDefault(g.getLaptopId(), 0);
+            if (max <= 0) // SP đã xoá / hết hàng -> bỏ dòng khách
+                continue;
+            lineRepo.upsert(userOwner, g.getLaptopId(), Math.min(g.getQuantity(), max), max, now);
+        }
+        lineRepo.deleteByOwner(guestOwner);
+        st.guestToken = null;
+        session.setAttribute(SESSION_ATTR, st);
+        touch(guestOwner);
+        touch(userOwner);
+    }
+
+    /**
+     * Giỏ của {@code owner} vừa bị ghi: bỏ bộ đếm, tăng phiên bản. Làm lại sau commit
+     * (onCartChanged) để request đọc xen giữa (còn thấy dữ liệu cũ) không giữ lại số sai.
+     */
+    private void touch(String owner) {
+        badges.put(owner, new Badge(clock.incrementAndGet(), null));
+        events.publishEvent(new CartChangedEvent(owner));
+    }
+
+    /** Sau commit ở node này, hoặc khi ClusterSignals phát lại thay đổi từ node khác. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent e) {
+        badges.put(e.ownerKey(), new Badge(clock.incrementAndGet(), null));
+    }
+
+    private static CartState state(HttpSession session) {
+        return session == null ? null : (CartState) session.getAttribute(SESSION_ATTR);
+    }
+
+    private static HttpSession currentSession(boolean create) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs))
+            return null;
+        HttpServletRequest req = attrs.getRequest();
+        return req.getSession(create);
+    }
+
+    private static String currentUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken)
+            return null;
+        return auth.getName();
     }
 }
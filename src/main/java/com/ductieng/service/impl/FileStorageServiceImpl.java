@@ -2,10 +2,10 @@ package com.ductieng.service.impl;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.ductieng.service.FileStorageService;
+import com.ductieng.service.UploadService;
 
 import java.io.IOException;
 import java.nio.file.*;
@@ -15,20 +15,21 @@ import java.util.UUID;
 public class FileStorageServiceImpl implements FileStorageService {
 
   private final Path baseDir;
+  private final UploadService uploads;
 
-  public FileStorageServiceImpl(@Value("${app.upload.base-dir:uploads}") String baseDirStr) throws IOException {
+  public FileStorageServiceImpl(@Value("${app.upload.base-dir:uploads}") String baseDirStr,
+      UploadService uploads) throws IOException {
     this.baseDir = Paths.get(baseDirStr).toAbsolutePath().normalize();
+    this.uploads = uploads;
     Files.createDirectories(this.baseDir.resolve("ann"));
   }
 
   @Override
   public String saveAnnouncementImage(MultipartFile file) throws IOException {
-    String ext = StringUtils.getFilenameExtension(file.getOriginalFilename());
-    if (ext == null) ext = "png";
-    String name = UUID.randomUUID() + "." + ext.toLowerCase();
-    Path target = baseDir.resolve("ann").resolve(name);
-    Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-    return "/uploads/ann/" + name;
+    // Kiểm tra cỡ + định dạng ảnh, đuôi file theo magic bytes
+    Path target = uploads.store(file, UploadService.Kind.ANNOUNCEMENT, baseDir.resolve("ann"),
+        UUID.randomUUID().toString());
+    return target == null ? null : "/uploads/ann/" + target.getFileName();
   }
 
   @Override
@@ -1,15 +1,33 @@
 package com.ductieng.service.impl;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ductieng.dto.CatalogFacets;
+import com.ductieng.dto.CursorPage;
+import com.ductieng.dto.LaptopCard;
+import com.ductieng.dto.LaptopCursor;
+import com.ductieng.dto.LaptopFilter;
+import com.ductieng.event.CatalogChangedEvent;
 import com.ductieng.model.Laptop;
 import com.ductieng.repository.LaptopRepository;
+import com.ductieng.repository.LaptopSpecifications;
 import com.ductieng.service.BrandService;
+import com.ductieng.service.CatalogIndex;
 import com.ductieng.service.LaptopService;
+import com.ductieng.service.ProductSearchIndex;
+import com.ductieng.util.LaptopSpecs;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,10 +36,21 @@ public class LaptopServiceImpl implements LaptopService {
 
     private final LaptopRepository laptopRepo;
     private final BrandService brandService;
+    private final CatalogIndex catalogIndex;
+    private final ProductSearchIndex searchIndex;
+    private final ApplicationEventPublisher events;
 
-    public LaptopServiceImpl(LaptopRepository laptopRepo, BrandService brandService) {
+    // Tắt để quay về lọc bằng SQL (Specification) thay vì index in-memory
+    @Value("${app.catalog.index.enabled:true}")
+    private boolean useIndex;
+
+    public LaptopServiceImpl(LaptopRepository laptopRepo, BrandService brandService,
+            CatalogIndex catalogIndex, ProductSearchIndex searchIndex, ApplicationEventPublisher events) {
         this.laptopRepo = laptopRepo;
         this.brandService = brandService;
+        this.catalogIndex = catalogIndex;
+        this.searchIndex = searchIndex;
+        this.events = events;
     }
 
     // ===== Public APIs =====
@@ -55,15 +84,101 @@ public class LaptopServiceImpl implements LaptopService {
                 : laptopRepo.findByCategory_IdAndBrandContainingIgnoreCase(categoryId, kw, pageable);
     }
 
+    @Override
+    public Page<LaptopCard> filter(LaptopFilter filter, int page, int size, String sort) {
+        if (useIndex) {
+            // Index trả sẵn id của trang + tổng; DB chỉ còn 1 lần nạp thẻ theo khoá chính
+            CatalogIndex.Hits hits = catalogIndex.query(filter, page, size, sort);
+            return new PageImpl<>(findCardsInOrder(hits.ids()),
+                    buildPageable(hits.page(), hits.size(), sort), hits.total());
+        }
+
+        Pageable pageable = buildPageable(page, size, sort);
+        List<Long> keywordIds = keywordIds(filter);
+        Specification<Laptop> spec = LaptopSpecifications.matches(filter, keywordIds);
+
+        if (keywordIds != null && (sort == null || sort.isBlank())) {
+            // Như index: có từ khoá mà không chọn sort -> xếp theo độ liên quan của ProductSearchIndex
+            Set<Long> ok = keywordIds.isEmpty() ? Set.of()
+                    : new HashSet<>(laptopRepo.findIds(spec, Sort.by("id"), 0, keywordIds.size()));
+            List<Long> ranked = keywordIds.stream().filter(ok::contains).toList();
+            Pageable clamped = pageable.withPage(
+                    clampPage(pageable.getPageNumber(), pageable.getPageSize(), ranked.size()));
+            int from = (int) clamped.getOffset();
+            List<Long> ids = ranked.subList(from, Math.min(from + clamped.getPageSize(), ranked.size()));
+            return new PageImpl<>(findCardsInOrder(ids), clamped, ranked.size());
+        }
+
+        // Đếm trước để kẹp trang, rồi chỉ lấy id của trang (không kéo BLOB)
+        long total = laptopRepo.count(spec);
+        Pageable clamped = pageable.withPage(clampPage(pageable.getPageNumber(), pageable.getPageSize(), total));
+        List<Long> ids = laptopRepo.findIds(spec, clamped.getSort(), clamped.getOffset(), clamped.getPageSize());
+        return new PageImpl<>(findCardsInOrder(ids), clamped, total);
+    }
+
+    @Override
+    public CursorPage<LaptopCard> scroll(LaptopFilter filter, String sort, String cursor, int size) {
+        String key = LaptopCursor.normalizeSort(sort);
+        LaptopCursor after = (cursor == null || cursor.isBlank()) ? null : LaptopCursor.decode(cursor, key);
+        int s = Math.max(size, 1);
+
+        // Lấy dư 1 dòng để biết còn trang sau hay không (không cần COUNT)
+        List<Long> ids;
+        if (useIndex) {
+            ids = catalogIndex.scroll(filter, key, after, s + 1);
+        } else {
+            Specification<Laptop> spec = LaptopSpecifications.matches(filter, keywordIds(filter))
+                    .and(LaptopSpecifications.after(after));
+            ids = laptopRepo.findIds(spec, buildPageable(0, s, key).getSort(), 0, s + 1);
+        }
+
+        List<LaptopCard> rows = findCardsInOrder(ids);
+        if (rows.size() <= s)
+            return new CursorPage<>(rows, null);
+        List<LaptopCard> items = rows.subList(0, s);
+        LaptopCard last = items.get(s - 1);
+        return new CursorPage<>(List.copyOf(items), new LaptopCursor(key, last.price(), last.id()).encode());
+    }
+
+    @Override
+    public List<LaptopCard> searchText(String query, int limit) {
+        return findCardsInOrder(searchIndex.search(query, limit).stream()
+                .map(ProductSearchIndex.Hit::id)
+                .toList());
+    }
+
+    @Override
+    public CatalogFacets facets(LaptopFilter filter) {
+        return catalogIndex.facets(filter);
+    }
+
     @Override
     public Laptop findById(Long id) {
         return laptopRepo.findById(id).orElse(null);
     }
 
+    @Override
+    public String findImageKey(Long id, int index) {
+        return laptopRepo.findImageKeys(id).map(k -> k.key(index)).orElse(null);
+    }
+
     @Transactional
     @Override
     public Laptop save(Laptop laptop) {
-        return laptopRepo.save(laptop);
+        Laptop saved = laptopRepo.save(laptop);
+        events.publishEvent(new CatalogChangedEvent(saved.getId()));
+        return saved;
+    }
+
+    @Transactional
+    @Override
+    public int backfillSpecs(int batchSize) {
+        List<Object[]> rows = laptopRepo.findConfigsMissingSpecs(PageRequest.of(0, Math.max(batchSize, 1)));
+        for (Object[] r : rows) {
+            LaptopSpecs.Specs specs = LaptopSpecs.extract((String) r[1]);
+            laptopRepo.updateSpecs((Long) r[0], specs.ramGb(), specs.cpuFamily(), specs.cpuModel());
+        }
+        return rows.size();
     }
 
     // ===== Convenience (không phân trang) =====
@@ -98,6 +213,32 @@ public class LaptopServiceImpl implements LaptopService {
 
     // ===== Helpers =====
 
+    /** Nạp thẻ (không BLOB) theo khoá chính rồi xếp lại đúng thứ tự ids truyền vào. */
+    private List<LaptopCard> findCardsInOrder(List<Long> ids) {
+        if (ids.isEmpty())
+            return List.of();
+        Map<Long, LaptopCard> byId = laptopRepo.findCardsByIdIn(ids).stream()
+                .collect(Collectors.toMap(LaptopCard::id, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /** Id khớp từ khoá theo độ liên quan (cùng nguồn với CatalogIndex); null = không có từ khoá. */
+    private List<Long> keywordIds(LaptopFilter filter) {
+        if (filter.keyword() == null)
+            return null;
+        return searchIndex.search(filter.keyword(), Integer.MAX_VALUE).stream()
+                .map(ProductSearchIndex.Hit::id)
+                .toList();
+    }
+
+    private static int clampPage(int page, int size, long total) {
+        int lastPage = (total == 0) ? 0 : (int) ((total - 1) / size);
+        return Math.min(Math.max(page, 0), lastPage);
+    }
+
     private Pageable buildPageable(int page, int size, String sort) {
         int p = Math.max(page, 0);
         int s = Math.max(size, 1);
@@ -108,9 +249,11 @@ public class LaptopServiceImpl implements LaptopService {
             case "priceDesc" -> Sort.by(Sort.Direction.DESC, "price");
             default -> Sort.by(Sort.Direction.ASC, "id");
         };
+        // Secondary sort theo id để thứ tự ổn định khi trùng giá
+        if (order.getOrderFor("id") == null) {
+            order = order.and(Sort.by(Sort.Direction.ASC, "id"));
+        }
         return PageRequest.of(p, s, order);
-        // NOTE: nếu muốn secondary sort ổn định:
-        // return PageRequest.of(p, s, order.and(Sort.by("id").ascending()));
     }
 
     private String sanitize(String text) {
@@ -1,8 +1,11 @@
 package com.ductieng.service.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.ductieng.dto.ProductRow;
+import com.ductieng.event.CatalogChangedEvent;
 import com.ductieng.model.Product;
 import com.ductieng.repository.ProductRepository;
 import com.ductieng.service.ProductService;
@@ -12,10 +15,12 @@ import java.util.List;
 @Service
 public class ProductServiceImpl implements ProductService {
     private final ProductRepository repo;
+    private final ApplicationEventPublisher events;
 
     @Autowired
-    public ProductServiceImpl(ProductRepository repo) {
+    public ProductServiceImpl(ProductRepository repo, ApplicationEventPublisher events) {
         this.repo = repo;
+        this.events = events;
     }
 
     @Override
@@ -23,6 +28,11 @@ public class ProductServiceImpl implements ProductService {
         return this.repo.findAll();
     }
 
+    @Override
+    public List<ProductRow> findAllRows() {
+        return repo.findAllRows();
+    }
+
     @Override
     public Product findById(Long id) {
         return repo.findById(id)
@@ -31,12 +41,14 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Product save(Product product) {
-    	
-        return repo.save(product);
+        Product saved = repo.save(product);
+        events.publishEvent(new CatalogChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
     public void deleteById(Long id) {
         repo.deleteById(id);
+        events.publishEvent(new CatalogChangedEvent(id));
     }
 }
@@ -1,13 +1,20 @@
 package com.ductieng.service.impl;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ductieng.dto.CursorPage;
 import com.ductieng.dto.RatingAgg;
+import com.ductieng.dto.ReviewCursor;
+import com.ductieng.dto.ReviewView;
+import com.ductieng.event.ReviewChangedEvent;
 import com.ductieng.model.Laptop;
 import com.ductieng.model.OrderStatus;
 import com.ductieng.model.Review;
 import com.ductieng.model.User;
+import com.ductieng.repository.LaptopRepository;
 import com.ductieng.repository.OrderRepository;
 import com.ductieng.repository.ReviewRepository;
 import com.ductieng.service.ReviewService;
@@ -22,15 +29,43 @@ public class ReviewServiceImpl implements ReviewService {
 
     private final ReviewRepository reviewRepository;
     private final OrderRepository orderRepository;
+    private final LaptopRepository laptopRepository;
+    private final ApplicationEventPublisher events;
 
-    public ReviewServiceImpl(ReviewRepository reviewRepository, OrderRepository orderRepository) {
+    public ReviewServiceImpl(ReviewRepository reviewRepository, OrderRepository orderRepository,
+            LaptopRepository laptopRepository, ApplicationEventPublisher events) {
         this.reviewRepository = reviewRepository;
         this.orderRepository = orderRepository;
+        this.laptopRepository = laptopRepository;
+        this.events = events;
     }
 
     @Override
+    @Transactional
     public Review save(Review review) {
-        return reviewRepository.save(review);
+        boolean isNew = review.getId() == null;
+        Review saved = reviewRepository.save(review);
+        if (saved.getLaptop() != null) {
+            // Review mới: cộng dồn; sửa review cũ (không biết điểm cũ): tính lại từ bảng reviews
+            if (isNew)
+                laptopRepository.addRating(saved.getLaptop().getId(), saved.getRating(), +1);
+            else
+                laptopRepository.recomputeRating(saved.getLaptop().getId());
+        }
+        publishChanged(saved);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteById(Long id) {
+        Review r = reviewRepository.findById(id).orElse(null);
+        if (r == null)
+            return false;
+        reviewRepository.delete(r);
+        laptopRepository.addRating(r.getLaptop().getId(), r.getRating(), -1);
+        publishChanged(r);
+        return true;
     }
 
     @Override
@@ -42,8 +77,24 @@ public class ReviewServiceImpl implements ReviewService {
     @Override
     @Transactional(readOnly = true)
     public double averageRating(Laptop laptop) {
-        Double avg = reviewRepository.averageRatingByLaptopId(laptop.getId());
-        return avg == null ? 0.0 : avg;
+        RatingAgg agg = ratingAgg(List.of(laptop.getId())).get(laptop.getId());
+        return (agg == null || agg.avg() == null) ? 0.0 : agg.avg();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ReviewView> scroll(Long laptopId, String cursor, int size) {
+        ReviewCursor after = (cursor == null || cursor.isBlank()) ? null : ReviewCursor.decode(cursor);
+        int s = Math.max(size, 1);
+        // Lấy dư 1 dòng để biết còn trang sau hay không (không cần COUNT)
+        PageRequest limit = PageRequest.of(0, s + 1);
+        List<ReviewView> rows = (after == null)
+                ? reviewRepository.findViewsByLaptopId(laptopId, limit)
+                : reviewRepository.findViewsByLaptopIdAfter(laptopId, after.createdAt(), after.id(), limit);
+        if (rows.size() <= s)
+            return new CursorPage<>(List.copyOf(rows), null);
+        List<ReviewView> items = List.copyOf(rows.subList(0, s));
+        return new CursorPage<>(items, ReviewCursor.after(items.get(s - 1)).encode());
     }
 
     @Override
@@ -55,7 +106,10 @@ public class ReviewServiceImpl implements ReviewService {
         r.setRating(Math.max(1, Math.min(5, rating)));
         r.setComment(comment);
         r.setCreatedAt(LocalDateTime.now());
-        return reviewRepository.save(r);
+        Review saved = reviewRepository.save(r);
+        laptopRepository.addRating(laptop.getId(), saved.getRating(), +1);
+        publishChanged(saved);
+        return saved;
     }
 
     @Override
@@ -63,22 +117,47 @@ public class ReviewServiceImpl implements ReviewService {
     public Map<Long, RatingAgg> ratingAgg(Collection<Long> laptopIds) {
         if (laptopIds == null || laptopIds.isEmpty())
             return Collections.emptyMap();
-        return reviewRepository.findAggByLaptopIds(new ArrayList<>(laptopIds))
+        // Đọc thẳng cột tổng hợp trên laptops (không AVG/COUNT trên reviews)
+        return laptopRepository.findRatingTotals(laptopIds)
                 .stream()
+                .map(r -> new RatingAgg((Long) r[0], ((Integer) r[1]).doubleValue() / (Integer) r[2],
+                        ((Integer) r[2]).longValue()))
                 .collect(Collectors.toMap(RatingAgg::laptopId, Function.identity()));
     }
 
+    @Override
+    @Transactional
+    public int reconcileRatings() {
+        List<Long> drifted = laptopRepository.findRatingDrift();
+        for (Long id : drifted) {
+            laptopRepository.recomputeRating(id);
+            events.publishEvent(new ReviewChangedEvent(id));
+        }
+        return drifted.size();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean hasUserPurchasedProduct(User user, Laptop laptop) {
         if (user == null || laptop == null)
             return false;
 
-        // Tìm các đơn hàng của user có trạng thái DELIVERED
-        return orderRepository.findByCustomerAndStatus(user, OrderStatus.DELIVERED)
-                .stream()
-                .anyMatch(order -> order.getItems().stream()
-                        .anyMatch(item -> item.getProduct() != null &&
-                                item.getProduct().getId().equals(laptop.getId())));
+        // Có đơn DELIVERED nào của user chứa laptop này không (1 câu EXISTS, không nạp đơn)
+        return orderRepository.existsPurchase(user.getId(), laptop.getId(), OrderStatus.DELIVERED)
+                .orElse(false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean canReview(String username, Long laptopId) {
+        if (username == null || laptopId == null)
+            return false;
+        return orderRepository.existsPurchaseByUsername(username, laptopId, OrderStatus.DELIVERED)
+                .orElse(false);
+    }
+
+    private void publishChanged(Review r) {
+        if (r.getLaptop() != null)
+            events.publishEvent(new ReviewChangedEvent(r.getLaptop().getId()));
     }
 }
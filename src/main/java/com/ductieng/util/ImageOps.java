@@ -0,0 +1,60 @@
+package com.ductieng.util;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Iterator;
+
+/** Thao tác ảnh dùng chung cho pipeline ảnh SP và avatar. */
+public final class ImageOps {
+
+    private ImageOps() {
+    }
+
+    /**
+     * Kích thước ảnh đọc từ header qua ImageReader, chưa giải mã pixel nào – dùng để chặn
+     * ảnh khổng lồ (vd PNG 30000x30000 vài trăm KB) trước khi decoder cấp bộ nhớ.
+     * {@code input}: File hoặc InputStream (luồng không bị đóng).
+     */
+    public static Dimension readSize(Object input) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(input)) {
+            if (iis == null)
+                throw new IOException("Không đọc được ảnh");
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext())
+                throw new IOException("Định dạng ảnh không được hỗ trợ");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public static long pixels(Dimension d) {
+        return (long) d.width * d.height;
+    }
+
+    /** JPEG không có kênh alpha: trải ảnh lên nền trắng (PNG trong suốt không bị nền đen). */
+    public static BufferedImage flatten(BufferedImage src) {
+        if (src.getType() == BufferedImage.TYPE_INT_RGB)
+            return src;
+        BufferedImage rgb = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, src.getWidth(), src.getHeight());
+            g.drawImage(src, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+}
@@ -0,0 +1,60 @@
+package com.ductieng.util;
+
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Nhận diện định dạng ảnh từ magic bytes (không tin đuôi file / header client gửi). */
+public final class ImageTypes {
+
+    /** Số byte đầu file cần đọc để nhận diện. */
+    public static final int HEAD_BYTES = 12;
+
+    private ImageTypes() {
+    }
+
+    /** Content-type theo magic bytes; không nhận ra thì coi là JPEG. */
+    public static String detect(byte[] bytes) {
+        String t = detectOrNull(bytes);
+        return t != null ? t : MediaType.IMAGE_JPEG_VALUE;
+    }
+
+    /** Content-type của file ảnh trên đĩa (chỉ đọc vài byte đầu). */
+    public static String detect(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return detect(in.readNBytes(HEAD_BYTES));
+        }
+    }
+
+    /** Như detect nhưng trả null khi không phải định dạng ảnh quen thuộc. */
+    public static String detectOrNull(byte[] bytes) {
+        if (bytes != null && bytes.length >= HEAD_BYTES) {
+            // PNG
+            if (bytes[0] == (byte)0x89 && bytes[1]=='P' && bytes[2]=='N' && bytes[3]=='G') {
+                return MediaType.IMAGE_PNG_VALUE;
+            }
+            // JPEG
+            if (bytes[0] == (byte)0xFF && bytes[1] == (byte)0xD8) {
+                return MediaType.IMAGE_JPEG_VALUE;
+            }
+            // WEBP: "RIFF....WEBP"
+            if (bytes[0]=='R' && bytes[1]=='I' && bytes[2]=='F' && bytes[3]=='F'
+                    && bytes[8]=='W' && bytes[9]=='E' && bytes[10]=='B' && bytes[11]=='P') {
+                return "image/webp";
+            }
+            // AVIF: "....ftypavif"
+            if (bytes[4]=='f' && bytes[5]=='t' && bytes[6]=='y' && bytes[7]=='p'
+                    && bytes[8]=='a' && bytes[9]=='v' && bytes[10]=='i' && bytes[11]=='f') {
+                return "image/avif";
+            }
+            // GIF: "GIF8"
+            if (bytes[0]=='G' && bytes[1]=='I' && bytes[2]=='F' && bytes[3]=='8') {
+                return MediaType.IMAGE_GIF_VALUE;
+            }
+        }
+        return null;
+    }
+}
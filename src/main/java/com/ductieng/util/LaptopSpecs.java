@@ -0,0 +1,120 @@
+package com.ductieng.util;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bóc tách thông số (RAM / CPU) từ chuỗi cấu hình tự do của laptop.
+ * Chạy lúc GHI (entity callback + job backfill) để lưu ra cột riêng có index,
+ * thay vì parse lại regex mỗi lần lọc danh sách.
+ */
+public final class LaptopSpecs {
+
+    public static final String INTEL = "Intel";
+    public static final String AMD = "AMD";
+    public static final String APPLE = "Apple";
+
+    /** Độ dài tối đa cột cpu_model. */
+    public static final int CPU_MODEL_MAX = 80;
+
+    /** Thông số đã bóc từ configuration, dùng chung cho Laptop / Product / job backfill. */
+    public record Specs(int ramGb, String cpuModel, String cpuFamily) {
+    }
+
+    // Compile 1 lần – Pattern thread-safe, Matcher thì không
+    private static final Pattern[] CPU_PATTERNS = {
+            Pattern.compile("(intel)\\s*core\\s*i[3-9](?:[-\\s]*\\w+)*", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(amd)\\s*ryzen\\s*\\d{1,2}(?:[-\\s]*\\w+)*", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(apple)?\\s*m[1-9](?:\\s*(pro|max|ultra))?", Pattern.CASE_INSENSITIVE)
+    };
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_DIGIT = Pattern.compile("[^0-9]");
+    private static final Pattern CPU_LABEL_PREFIX = Pattern.compile("^[:\\s-]*");
+
+    private LaptopSpecs() {
+    }
+
+    /** Bóc RAM / CPU / họ CPU từ chuỗi cấu hình (cpu_model đã cắt vừa cột). */
+    public static Specs extract(String configuration) {
+        String model = truncate(parseCpu(configuration), CPU_MODEL_MAX);
+        return new Specs(parseRam(configuration), model, cpuFamily(model));
+    }
+
+    /** RAM (GB) = số đứng ngay trước chữ "GB" đầu tiên; không parse được thì 0. */
+    public static int parseRam(String configuration) {
+        try {
+            if (configuration != null) {
+                String s = configuration.toUpperCase(Locale.ROOT);
+                int i = s.indexOf("GB");
+                if (i > 0) {
+                    String digits = NON_DIGIT.matcher(s.substring(Math.max(0, i - 3), i)).replaceAll("");
+                    if (!digits.isBlank())
+                        return Integer.parseInt(digits);
+                }
+            }
+        } catch (Exception ignore) {
+        }
+        return 0;
+    }
+
+    /** Chuỗi CPU nổi bật (Intel Core iX / AMD Ryzen / Apple Mx / sau nhãn "CPU"), hoặc null. */
+    public static String parseCpu(String configuration) {
+        if (configuration == null || configuration.isBlank())
+            return null;
+        String conf = configuration;
+
+        try {
+            for (Pattern p : CPU_PATTERNS) {
+                Matcher m = p.matcher(conf);
+                if (m.find())
+                    return WHITESPACE.matcher(m.group().trim()).replaceAll(" ");
+            }
+
+            int idx = conf.toLowerCase(Locale.ROOT).indexOf("cpu");
+            if (idx >= 0) {
+                String tail = CPU_LABEL_PREFIX.matcher(conf.substring(idx + 3)).replaceFirst("");
+                int cut = tail.indexOf(',');
+                if (cut < 0)
+                    cut = tail.indexOf('\n');
+                if (cut >= 0)
+                    tail = tail.substring(0, cut);
+                tail = tail.trim();
+                if (!tail.isBlank())
+                    return tail;
+            }
+        } catch (Exception ignore) {
+        }
+        return null;
+    }
+
+    /** Chuẩn hoá họ CPU: Intel | AMD | Apple, không nhận ra thì null. */
+    public static String cpuFamily(String cpuModel) {
+        if (cpuModel == null || cpuModel.isBlank())
+            return null;
+        String s = cpuModel.toLowerCase(Locale.ROOT);
+        if (s.contains("intel") || s.contains("core i"))
+            return INTEL;
+        if (s.contains("amd") || s.contains("ryzen"))
+            return AMD;
+        if (s.contains("apple") || s.matches("^\\s*m[1-9].*"))
+            return APPLE;
+        return null;
+    }
+
+    /** Giá trị lọc CPU từ UI ("Intel", "amd"...) -> tên họ chuẩn, không phải họ thì null. */
+    public static String normalizeFamily(String value) {
+        if (value == null)
+            return null;
+        for (String f : new String[] { INTEL, AMD, APPLE }) {
+            if (f.equalsIgnoreCase(value.trim()))
+                return f;
+        }
+        return null;
+    }
+
+    /** Cắt độ dài cho vừa cột cpu_model. */
+    public static String truncate(String s, int max) {
+        return (s == null || s.length() <= max) ? s : s.substring(0, max);
+    }
+}
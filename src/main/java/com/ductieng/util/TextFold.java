@@ -0,0 +1,37 @@
+package com.ductieng.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hoá chữ cho tìm kiếm: bỏ dấu tiếng Việt (kể cả đ/Đ), viết thường,
+ * tách từ theo ký tự không phải chữ/số. "Máy tính ĐỒ HOẠ" -> [may, tinh, do, hoa].
+ */
+public final class TextFold {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private TextFold() {
+    }
+
+    public static String fold(String s) {
+        if (s == null || s.isEmpty())
+            return "";
+        String n = Normalizer.normalize(s, Normalizer.Form.NFD);
+        n = MARKS.matcher(n).replaceAll("");
+        return n.replace('đ', 'd').replace('Đ', 'D').toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokens(String s) {
+        List<String> out = new ArrayList<>();
+        for (String t : SEPARATORS.split(fold(s))) {
+            if (!t.isEmpty())
+                out.add(t);
+        }
+        return out;
+    }
+}
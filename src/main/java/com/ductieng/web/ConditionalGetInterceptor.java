@@ -0,0 +1,103 @@
+package com.ductieng.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import com.ductieng.service.CartService;
+import com.ductieng.service.ContentVersions;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * GET có điều kiện (ETag / Last-Modified) cho trang danh sách và trang chi tiết SP.
+ * <p>
+ * Chạy ở preHandle – trước controller và cả các @ModelAttribute toàn cục – nên khi
+ * trả 304 thì không có truy vấn DB nào. ETag = phiên bản nội dung (ContentVersions)
+ * + node phát ra (phiên bản chỉ so được trong 1 node)
+ * + dấu vân tay người xem (session, user, phiên bản giỏ) vì trang có navbar,
+ * CSRF token theo session -> Cache-Control: private (proxy không được dùng chung).
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final ContentVersions versions;
+    private final CartService cartService;
+
+    public ConditionalGetInterceptor(ContentVersions versions, CartService cartService) {
+        this.versions = versions;
+        this.cartService = cartService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest req, HttpServletResponse res, Object handler) {
+        if (!"GET".equals(req.getMethod()) && !"HEAD".equals(req.getMethod()))
+            return true;
+        // Trang phải hiện thông báo 1 lần / flash message -> luôn render đầy đủ
+        if (req.getAttribute("showDiscountAnn") != null)
+            return true;
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(req);
+        if (flash != null && !flash.isEmpty())
+            return true;
+
+        String path = req.getRequestURI().substring(req.getContextPath().length());
+        String tag;
+        long modified;
+        ContentVersions.Version site = versions.site();
+        if (path.equals("/") || path.equals("/laptops")) {
+            ContentVersions.Version c = versions.catalog();
+            tag = "l-" + c.value() + "-" + site.value();
+            modified = Math.max(c.modifiedAt(), site.modifiedAt());
+        } else if (path.startsWith("/product/")) {
+            Long id = parseId(path.substring("/product/".length()));
+            if (id == null)
+                return true;
+            ContentVersions.Version p = versions.product(id);
+            tag = "p-" + id + "-" + p.value() + "-" + site.value();
+            modified = Math.max(p.modifiedAt(), site.modifiedAt());
+            if (req.getUserPrincipal() != null) {
+                // Nút "đánh giá" phụ thuộc đơn đã giao của user
+                tag += "-" + versions.orders().value();
+                modified = Math.max(modified, versions.orders().modifiedAt());
+            }
+        } else {
+            return true;
+        }
+
+        tag = versions.node() + "-" + tag;
+
+        HttpSession session = req.getSession(false);
+        Principal user = req.getUserPrincipal();
+        boolean personal = session != null || user != null;
+        if (personal) {
+            String who = (session == null ? "" : session.getId()) + "|"
+                    + (user == null ? "" : user.getName()) + "|"
+                    + cartService.getCartVersion(); // RAM, không đọc DB như getItemCount()
+            tag += "-" + Integer.toHexString(who.hashCode());
+        }
+
+        res.setHeader(HttpHeaders.CACHE_CONTROL, personal ? "private, no-cache" : "no-cache");
+        ServletWebRequest web = new ServletWebRequest(req, res);
+        // Last-Modified chỉ đủ tin cậy khi trang không phụ thuộc người xem
+        boolean notModified = personal
+                ? web.checkNotModified("\"" + tag + "\"")
+                : web.checkNotModified("\"" + tag + "\"", modified);
+        return !notModified;
+    }
+
+    private static Long parseId(String s) {
+        if (s.isEmpty() || s.length() > 18)
+            return null;
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isDigit(s.charAt(i)))
+                return null;
+        }
+        return Long.valueOf(s);
+    }
+}
@@ -0,0 +1,46 @@
+// Gợi ý tìm kiếm khi gõ cho các ô input[data-suggest] (dùng <datalist> của trình duyệt)
+(function () {
+  function debounce(fn, ms) {
+    let t;
+    return function () {
+      const args = arguments;
+      clearTimeout(t);
+      t = setTimeout(() => fn.apply(null, args), ms);
+    };
+  }
+
+  document.querySelectorAll("input[data-suggest]").forEach((input) => {
+    const list = document.getElementById(input.getAttribute("list"));
+    if (!list) return;
+    let urls = {};
+
+    const load = debounce((q) => {
+      if (q.trim().length < 2) {
+        list.innerHTML = "";
+        return;
+      }
+      fetch("/api/search/suggest?q=" + encodeURIComponent(q))
+        .then((r) => (r.ok ? r.json() : []))
+        .then((items) => {
+          urls = {};
+          list.innerHTML = "";
+          items.forEach((it) => {
+            const opt = document.createElement("option");
+            opt.value = it.text;
+            urls[it.text] = it.url;
+            list.appendChild(opt);
+          });
+        })
+        .catch(() => {});
+    }, 150);
+
+    input.addEventListener("input", (e) => {
+      // Chọn 1 gợi ý trong danh sách -> đi thẳng tới trang tương ứng
+      if (urls[input.value] && !(e.inputType || "").startsWith("insert")) {
+        window.location.href = urls[input.value];
+        return;
+      }
+      load(input.value);
+    });
+  });
+})();
@@ -0,0 +1,103 @@
+package com.ductieng.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import com.ductieng.dto.LaptopFilter;
+import com.ductieng.model.Laptop;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Các đường đọc danh sách (thẻ SP, id theo bộ lọc, bảng dashboard) chạy đúng 1 câu SELECT
+ * và không kéo cột nặng / không cần: khoá ảnh image1_key..image5_key và configuration (TEXT).
+ * Bắt SQL Hibernate sinh ra qua StatementInspector rồi kiểm tra.
+ */
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.ductieng.repository.ListQueriesSelectTest$SqlCapture")
+class ListQueriesSelectTest {
+
+    // image_url (ảnh đại diện của thẻ) được phép
+    private static final Pattern HEAVY_COLUMN = Pattern.compile("\\bimage[1-5]_key\\b|\\bconfiguration\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private LaptopRepository laptopRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    private Long id;
+
+    @BeforeEach
+    void setUp() {
+        Laptop l = new Laptop();
+        l.setName("Dell XPS 13");
+        l.setBrand("Dell");
+        l.setPrice(25_000_000d);
+        l.setQuantity(3);
+        l.setConfiguration("Intel Core i7, 16GB RAM");
+        id = laptopRepo.saveAndFlush(l).getId();
+        SqlCapture.SQL.clear();
+    }
+
+    @Test
+    void findCardsByIdInRunsOneLightSelect() {
+        assertThat(laptopRepo.findCardsByIdIn(List.of(id))).hasSize(1);
+        assertOneLightSelect();
+    }
+
+    @Test
+    void findIdsRunsOneLightSelect() {
+        LaptopFilter f = LaptopFilter.of("dell", null, "0-30000000", "16", "Intel", "Dell");
+        laptopRepo.findIds(LaptopSpecifications.matches(f, List.of(id)), Sort.by("price").and(Sort.by("id")), 0, 20);
+        assertOneLightSelect();
+    }
+
+    @Test
+    void findAllRowsRunsOneLightSelect() {
+        assertThat(productRepo.findAllRows()).hasSize(1);
+        assertOneLightSelect();
+    }
+
+    /** Đối chứng: nạp cả entity thì có cột khoá ảnh -> biểu thức kiểm tra thật sự bắt được. */
+    @Test
+    void entityLoadSelectsHeavyColumns() {
+        laptopRepo.findAll();
+        assertThat(selects()).anyMatch(sql -> HEAVY_COLUMN.matcher(sql).find());
+    }
+
+    private static void assertOneLightSelect() {
+        List<String> selects = selects();
+        assertThat(SqlCapture.SQL).hasSize(1);
+        assertThat(selects).hasSize(1);
+        assertThat(selects).noneMatch(sql -> HEAVY_COLUMN.matcher(sql).find());
+    }
+
+    private static List<String> selects() {
+        return SqlCapture.SQL.stream()
+                .filter(sql -> sql.trim().toLowerCase().startsWith("select"))
+                .toList();
+    }
+
+    /** Hibernate tự tạo qua tên lớp (cần public + constructor mặc định). */
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ductieng.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.ductieng.event.CartChangedEvent;
+import com.ductieng.event.CatalogChangedEvent;
+import com.ductieng.event.OrderStatusChangedEvent;
+import com.ductieng.model.OrderStatus;
+import com.ductieng.repository.CacheSignalRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** 2 node dùng chung bảng cache_signals: thay đổi ở node này được phát lại ở node kia. */
+@DataJpaTest
+class ClusterSignalsTest {
+
+    @Autowired
+    CacheSignalRepository repo;
+
+    /** 1 node giả: listener nhận lại sự kiện như Spring, kể cả listener ghi tín hiệu. */
+    private final class Node {
+        final List<Object> published = new ArrayList<>();
+        final ClusterSignals signals;
+
+        Node(Duration gapTimeout) {
+            signals = new ClusterSignals(repo, e -> {
+                published.add(e);
+                if (e instanceof CatalogChangedEvent c)
+                    signals().onCatalogChanged(c);
+            }, true, 1000, gapTimeout);
+            signals.init();
+        }
+
+        ClusterSignals signals() {
+            return signals;
+        }
+    }
+
+    @Test
+    void replaysOtherNodesChangesOnly() {
+        Node a = new Node(Duration.ofSeconds(10));
+        Node b = new Node(Duration.ofSeconds(10));
+
+        a.signals.onCatalogChanged(new CatalogChangedEvent(7L));
+        a.signals.onOrderStatusChanged(new OrderStatusChangedEvent(3L, OrderStatus.DELIVERED));
+        a.signals.onCartChanged(new CartChangedEvent("u:alice"));
+
+        b.signals.poll();
+        assertThat(b.published).containsExactly(
+                new CatalogChangedEvent(7L),
+                new OrderStatusChangedEvent(3L, OrderStatus.DELIVERED),
+                new CartChangedEvent("u:alice"));
+        // Phát lại không sinh tín hiệu mới (không lặp vô hạn giữa các node)
+        assertThat(b.signals.stats().sent()).isZero();
+        assertThat(repo.count()).isEqualTo(3);
+
+        a.signals.poll();
+        assertThat(a.published).isEmpty();
+
+        b.published.clear();
+        b.signals.poll();
+        assertThat(b.published).isEmpty();
+    }
+
+    @Test
+    void waitsForGapThenSkipsIt() {
+        Node a = new Node(Duration.ofSeconds(10));
+        // id tự tăng không quay lại sau rollback của test trước -> đặt con trỏ ở 1 id có thật
+        a.signals.onCatalogChanged(new CatalogChangedEvent(0L));
+        Node slow = new Node(Duration.ofHours(1));
+        Node fast = new Node(Duration.ZERO);
+
+        a.signals.onCatalogChanged(new CatalogChangedEvent(1L));
+        a.signals.onCatalogChanged(new CatalogChangedEvent(2L));
+        a.signals.onCatalogChanged(new CatalogChangedEvent(3L));
+        // id giữa chưa commit (hoặc đã rollback) -> lỗ hổng
+        Long middle = repo.findAll().stream().map(s -> s.getId()).sorted().toList().get(2);
+        repo.deleteById(middle);
+
+        slow.signals.poll();
+        fast.signals.poll();
+        fast.signals.poll();
+        assertThat(slow.published).containsExactly(new CatalogChangedEvent(1L), new CatalogChangedEvent(3L));
+        assertThat(fast.published).containsExactly(new CatalogChangedEvent(1L), new CatalogChangedEvent(3L));
+
+        // Node chậm vẫn chờ lỗ hổng, node nhanh đã bỏ qua; không node nào phát lại lần 2
+        assertThat(slow.signals.stats().pending()).isEqualTo(1);
+        assertThat(fast.signals.stats().pending()).isZero();
+        assertThat(fast.signals.stats().skippedGaps()).isEqualTo(1);
+        slow.signals.poll();
+        assertThat(slow.published).hasSize(2);
+    }
+}
@@ -0,0 +1,87 @@
+package com.ductieng.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Pipeline biến thể: ảnh gốc -> master + mỗi cỡ 1 bản JPEG và 1 bản WebP. */
+class ImageVariantsTest {
+
+    @TempDir
+    Path baseDir;
+
+    @Test
+    void writesJpegAndWebpVariants() throws Exception {
+        ImageStore store = new ImageStore(baseDir.toString());
+        ImageVariants variants = new ImageVariants(store, 2400, 50_000_000, 1, 10, Duration.ofMinutes(10));
+        try {
+            assertThat(variants.stats().webp()).isTrue();
+
+            BufferedImage img = new BufferedImage(1200, 800, BufferedImage.TYPE_INT_ARGB);
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(img, "png", png);
+            String key = store.put(png.toByteArray());
+
+            variants.enqueue(key);
+            assertThat(awaitSettled(variants, key)).isEqualTo(ImageVariants.State.DONE);
+
+            Path card = store.variantPath(key, "card." + ImageVariants.WEBP);
+            assertThat(card).isRegularFile();
+            assertThat(Files.readAllBytes(card)).startsWith('R', 'I', 'F', 'F');
+            assertThat(ImageIO.read(card.toFile()).getWidth()).isEqualTo(ImageVariants.Size.CARD.width);
+            assertThat(store.variantPath(key, "card." + ImageVariants.JPEG)).isRegularFile();
+
+            Optional<ImageVariants.Hit> hit = variants.find(key, ImageVariants.Size.CARD, true);
+            assertThat(hit).get().extracting(ImageVariants.Hit::contentType).isEqualTo("image/webp");
+            hit = variants.find(key, ImageVariants.Size.CARD, false);
+            assertThat(hit).get().extracting(ImageVariants.Hit::contentType).isEqualTo("image/jpeg");
+        } finally {
+            variants.shutdown();
+        }
+    }
+
+    @Test
+    void failedImageIsRetriedAfterBackoff() throws Exception {
+        ImageStore store = new ImageStore(baseDir.toString());
+        ImageVariants variants = new ImageVariants(store, 2400, 50_000_000, 1, 10, Duration.ofMillis(200));
+        try {
+            String key = store.put("không phải ảnh".getBytes(StandardCharsets.UTF_8));
+
+            variants.enqueue(key);
+            assertThat(awaitSettled(variants, key)).isEqualTo(ImageVariants.State.FAILED);
+            // Chưa hết retry-after: enqueue bỏ qua, vẫn báo lỗi
+            variants.enqueue(key);
+            assertThat(variants.status(List.of(key)).get(key).state()).isEqualTo(ImageVariants.State.FAILED);
+            assertThat(variants.stats().failed()).isEqualTo(1);
+
+            Thread.sleep(300);
+            variants.enqueue(key);
+            assertThat(awaitSettled(variants, key)).isEqualTo(ImageVariants.State.FAILED);
+            assertThat(variants.stats().failed()).isEqualTo(2);
+        } finally {
+            variants.shutdown();
+        }
+    }
+
+    private static ImageVariants.State awaitSettled(ImageVariants variants, String key) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            ImageVariants.State st = variants.status(List.of(key)).get(key).state();
+            if (st == ImageVariants.State.DONE || st == ImageVariants.State.FAILED)
+                return st;
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Ảnh " + key + " chưa xử lý xong");
+    }
+}
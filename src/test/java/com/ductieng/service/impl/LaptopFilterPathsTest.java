@@ -0,0 +1,97 @@
+package com.ductieng.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ductieng.dto.LaptopCard;
+import com.ductieng.dto.LaptopFilter;
+import com.ductieng.model.Laptop;
+import com.ductieng.repository.LaptopRepository;
+import com.ductieng.service.BrandService;
+import com.ductieng.service.CatalogIndex;
+import com.ductieng.service.ProductSearchIndex;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cùng 1 bộ lọc phải ra cùng kết quả (thứ tự + tổng) dù đi qua CatalogIndex hay đường
+ * dự phòng SQL (app.catalog.index.enabled=false).
+ */
+@DataJpaTest
+class LaptopFilterPathsTest {
+
+    @Autowired
+    private LaptopRepository laptopRepo;
+
+    private LaptopServiceImpl indexed;
+    private LaptopServiceImpl fallback;
+
+    @BeforeEach
+    void setUp() {
+        laptop("Dell XPS 13 Đồ họa", "Dell", 25_000_000, "Intel Core i7-1360P, 16GB RAM");
+        laptop("Inspiron 15", "Dell", 15_000_000, "Intel Core i5-1235U, 8GB RAM");
+        laptop("ThinkPad X1 Carbon", "Lenovo", 30_000_000, "Intel Core i7-1365U, 16GB RAM, đồ họa Iris Xe");
+        laptop("Zenbook 14", "Asus", 20_000_000, "AMD Ryzen 7 7730U, 16GB RAM");
+        laptop("MacBook Air M2", "Apple", 28_000_000, "Apple M2, 8GB RAM");
+        laptopRepo.flush();
+
+        ApplicationEventPublisher events = e -> {
+        };
+        ProductSearchIndex search = new ProductSearchIndex(laptopRepo);
+        CatalogIndex catalog = new CatalogIndex(laptopRepo, search, events);
+        indexed = service(catalog, search, events, true);
+        fallback = service(catalog, search, events, false);
+    }
+
+    @Test
+    void keywordMatchesSameProductsOnBothPaths() {
+        // "do hoa" (không dấu) khớp name của Dell và configuration của ThinkPad, không khớp brand
+        assertSamePage(LaptopFilter.of("do hoa", null, null, null, null, null), null);
+        assertSamePage(LaptopFilter.of("dell", null, null, null, null, null), null);
+        assertSamePage(LaptopFilter.of("ryzen", null, null, null, null, null), "priceAsc");
+        assertSamePage(LaptopFilter.of("thinkpd", null, null, null, null, null), null); // sai chính tả nhẹ
+    }
+
+    @Test
+    void filtersMatchSameProductsOnBothPaths() {
+        assertSamePage(LaptopFilter.of(null, null, "15000000-20000000", null, null, null), "priceDesc");
+        assertSamePage(LaptopFilter.of(null, null, null, "16", "Intel", null), "new");
+        assertSamePage(LaptopFilter.of("intel", null, "0-30000000", null, null, "Dell"), null);
+    }
+
+    private void assertSamePage(LaptopFilter f, String sort) {
+        var a = indexed.filter(f, 0, 10, sort);
+        var b = fallback.filter(f, 0, 10, sort);
+        assertThat(ids(b.getContent())).isEqualTo(ids(a.getContent()));
+        assertThat(b.getTotalElements()).isEqualTo(a.getTotalElements());
+        assertThat(a.getTotalElements()).isPositive();
+    }
+
+    private static List<Long> ids(List<LaptopCard> cards) {
+        return cards.stream().map(LaptopCard::id).toList();
+    }
+
+    private LaptopServiceImpl service(CatalogIndex catalog, ProductSearchIndex search,
+            ApplicationEventPublisher events, boolean useIndex) {
+        LaptopServiceImpl s = new LaptopServiceImpl(laptopRepo, mock(BrandService.class), catalog, search, events);
+        ReflectionTestUtils.setField(s, "useIndex", useIndex);
+        return s;
+    }
+
+    private void laptop(String name, String brand, double price, String configuration) {
+        Laptop l = new Laptop();
+        l.setName(name);
+        l.setBrand(brand);
+        l.setPrice(price);
+        l.setQuantity(5);
+        l.setConfiguration(configuration);
+        laptopRepo.save(l);
+    }
+}